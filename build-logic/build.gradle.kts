@@ -3,6 +3,7 @@ plugins {
 }
 
 dependencies {
+  implementation(libs.build.jmh)
   implementation(libs.build.nexus)
   implementation(libs.build.shadow)
   implementation(libs.build.spotless)
@@ -18,6 +18,7 @@ tasks.getByName<Jar>("jar") {
       "Premain-Class" to "space.vectrix.ignite.agent.IgniteAgent",
       "Agent-Class" to "space.vectrix.ignite.agent.IgniteAgent",
       "Launcher-Agent-Class" to "space.vectrix.ignite.agent.IgniteAgent",
+      "Can-Redefine-Classes" to true,
       "Main-Class" to "space.vectrix.ignite.IgniteBootstrap",
       "Multi-Release" to true,
 
@@ -1,5 +1,6 @@
 plugins {
   id("ignite.launcher-conventions")
+  id("me.champeau.jmh")
 }
 
 dependencies {
@@ -25,4 +26,17 @@ dependencies {
   implementation(libs.asm.util)
 
   implementation(libs.gson)
+
+  testImplementation(platform(libs.junit.bom))
+  testImplementation(libs.junit.jupiter)
+  testRuntimeOnly(libs.junit.launcher)
+}
+
+tasks.test {
+  useJUnitPlatform()
+}
+
+jmh {
+  jmhVersion.set(libs.versions.jmh.get())
+  profilers.add("gc")
 }
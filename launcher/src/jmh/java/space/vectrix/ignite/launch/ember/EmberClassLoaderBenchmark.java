@@ -0,0 +1,113 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures repeat class loads through the {@link EmberClassLoader}.
+ *
+ * <p>Run with the {@code gc} profiler, both loads should report no
+ * allocations per operation.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmberClassLoaderBenchmark {
+  /* package */ static final String DEFINED = "benchmark.Defined";
+  /* package */ static final String DELEGATED = "org.objectweb.asm.Opcodes";
+
+  private Path directory;
+  private EmberClassLoader loader;
+
+  @Setup
+  public void setup() throws Exception {
+    this.directory = Files.createTempDirectory("ember-benchmark");
+    EmberClassLoaderBenchmark.writeClass(this.directory, EmberClassLoaderBenchmark.DEFINED);
+
+    // Mixin is global state, and isn't needed to define the classes here.
+    this.loader = new EmberClassLoader(new EmberTransformer(Collections.emptyList()));
+    this.loader.addTransformationPath(this.directory);
+
+    // The first loads define and delegate the classes, every later load is a
+    // repeat load.
+    this.loader.loadClass(EmberClassLoaderBenchmark.DEFINED);
+    this.loader.loadClass(EmberClassLoaderBenchmark.DELEGATED);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    EmberClassLoaderBenchmark.delete(this.directory);
+  }
+
+  @Benchmark
+  public Class<?> loadDefined() throws ClassNotFoundException {
+    return this.loader.loadClass(EmberClassLoaderBenchmark.DEFINED);
+  }
+
+  @Benchmark
+  public Class<?> loadDelegated() throws ClassNotFoundException {
+    return this.loader.loadClass(EmberClassLoaderBenchmark.DELEGATED);
+  }
+
+  /* package */ static void writeClass(final Path directory, final String name) throws IOException {
+    final String internalName = name.replace('.', '/');
+    final ClassWriter writer = new ClassWriter(0);
+    writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null, "java/lang/Object", null);
+    writer.visitEnd();
+
+    final Path path = directory.resolve(internalName.concat(".class"));
+    Files.createDirectories(path.getParent());
+    Files.write(path, writer.toByteArray());
+  }
+
+  /* package */ static void delete(final Path directory) throws IOException {
+    try(final Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+}
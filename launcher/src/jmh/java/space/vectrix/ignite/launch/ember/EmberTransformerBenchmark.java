@@ -0,0 +1,191 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import space.vectrix.ignite.launch.transformer.AccessTransformerImpl;
+
+/**
+ * Measures the throughput of the transform pipeline with an increasing
+ * number of concurrent loaders.
+ *
+ * <p>Each class is parsed, inspected by a transformer that runs in parallel,
+ * passed through an exclusive transformer standing in for mixin, and
+ * written. Only the exclusive step is serialized, so throughput should scale
+ * with the loaders until the exclusive work dominates.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmberTransformerBenchmark {
+  /**
+   * The work done in the exclusive step, in {@link Blackhole#consumeCPU(long)}
+   * tokens.
+   */
+  @Param({"0", "1000", "10000"})
+  public long exclusiveWork;
+
+  private EmberTransformer transformer;
+  private byte[] bytes;
+
+  @Setup
+  public void setup() throws IOException {
+    try(final InputStream stream = EmberTransformer.class.getResourceAsStream("EmberTransformer.class")) {
+      this.bytes = ResourceRoot.read(stream, -1);
+    }
+
+    this.transformer = new EmberTransformer(Arrays.asList(
+      new AccessTransformerImpl(),
+      new InspectingTransformer(),
+      new ExclusiveTransformer(this.exclusiveWork)
+    ));
+  }
+
+  @Benchmark
+  @Threads(1)
+  public byte[] loaders1() {
+    return this.transform();
+  }
+
+  @Benchmark
+  @Threads(2)
+  public byte[] loaders2() {
+    return this.transform();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public byte[] loaders4() {
+    return this.transform();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public byte[] loaders8() {
+    return this.transform();
+  }
+
+  private byte[] transform() {
+    return this.transformer.transform("space.vectrix.ignite.launch.ember.EmberTransformer", this.bytes, TransformPhase.INITIALIZE);
+  }
+
+  private static final class InspectingTransformer implements TransformerService {
+    private int instructions;
+
+    @Override
+    public void prepare() {
+    }
+
+    @Override
+    public int priority(final TransformPhase phase) {
+      return phase == TransformPhase.INITIALIZE ? 50 : -1;
+    }
+
+    @Override
+    public TransformChange change() {
+      return TransformChange.METADATA;
+    }
+
+    @Override
+    public boolean shouldTransform(final Type type, final ClassNode node) {
+      return true;
+    }
+
+    @Override
+    public ClassNode transform(final Type type, final ClassNode node, final TransformPhase phase) {
+      // Walks every instruction, and reports a change so the class is written.
+      int count = 0;
+      for(final MethodNode method : node.methods) {
+        for(final AbstractInsnNode instruction : method.instructions) {
+          if(instruction.getOpcode() >= 0) count++;
+        }
+      }
+
+      this.instructions = count;
+      return node;
+    }
+  }
+
+  private static final class ExclusiveTransformer implements TransformerService {
+    private final long work;
+
+    /* package */ ExclusiveTransformer(final long work) {
+      this.work = work;
+    }
+
+    @Override
+    public void prepare() {
+    }
+
+    @Override
+    public int priority(final TransformPhase phase) {
+      return phase == TransformPhase.INITIALIZE ? 100 : -1;
+    }
+
+    @Override
+    public TransformChange change() {
+      return TransformChange.METADATA;
+    }
+
+    @Override
+    public boolean exclusive() {
+      return true;
+    }
+
+    @Override
+    public boolean shouldTransform(final Type type, final ClassNode node) {
+      return true;
+    }
+
+    @Override
+    public ClassNode transform(final Type type, final ClassNode node, final TransformPhase phase) {
+      Blackhole.consumeCPU(this.work);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import space.vectrix.ignite.util.IgniteConstants;
+
+/**
+ * Measures parsing a class into a tree with each of the reader flags the
+ * transform pipeline negotiates.
+ *
+ * <p>Run with the {@code gc} profiler to compare the allocations of each
+ * flag against reading the whole class.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderFlagsBenchmark {
+  @Param({"NONE", "SKIP_FRAMES", "SKIP_DEBUG", "EXPAND_FRAMES"})
+  public String flags;
+
+  private byte[] bytes;
+  private int readerFlags;
+
+  @Setup
+  public void setup() throws IOException {
+    // The transformer is large, and has both frames and debug information.
+    try(final InputStream stream = EmberTransformer.class.getResourceAsStream("EmberTransformer.class")) {
+      this.bytes = ResourceRoot.read(stream, -1);
+    }
+
+    this.readerFlags = ReaderFlagsBenchmark.flags(this.flags);
+  }
+
+  @Benchmark
+  public ClassNode parse() {
+    final ClassNode node = new ClassNode(IgniteConstants.ASM_VERSION);
+    new ClassReader(this.bytes).accept(node, this.readerFlags);
+    return node;
+  }
+
+  private static int flags(final String name) {
+    switch(name) {
+      case "SKIP_FRAMES": {
+        return ClassReader.SKIP_FRAMES;
+      }
+      case "SKIP_DEBUG": {
+        return ClassReader.SKIP_DEBUG;
+      }
+      case "EXPAND_FRAMES": {
+        return ClassReader.EXPAND_FRAMES;
+      }
+      default: {
+        return 0;
+      }
+    }
+  }
+}
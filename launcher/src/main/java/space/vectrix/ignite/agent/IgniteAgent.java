@@ -27,8 +27,10 @@ package space.vectrix.ignite.agent;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.instrument.ClassDefinition;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
 import java.nio.file.Path;
 import java.util.jar.JarFile;
 import org.jetbrains.annotations.NotNull;
@@ -54,6 +56,34 @@ public final class IgniteAgent {
     if(IgniteAgent.INSTRUMENTATION != null) IgniteAgent.INSTRUMENTATION.addTransformer(transformer);
   }
 
+  /**
+   * Returns {@code true} if this agent can redefine classes, otherwise
+   * returns {@code false}.
+   *
+   * @return whether classes can be redefined
+   * @since 1.1.0
+   */
+  public static boolean canRedefineClasses() {
+    return IgniteAgent.INSTRUMENTATION != null && IgniteAgent.INSTRUMENTATION.isRedefineClassesSupported();
+  }
+
+  /**
+   * Redefines the given classes with this agent.
+   *
+   * @param definitions the class definitions
+   * @throws ClassNotFoundException if a class could not be found
+   * @throws UnmodifiableClassException if a class cannot be modified
+   * @since 1.1.0
+   */
+  public static void redefineClasses(final @NotNull ClassDefinition@NotNull [] definitions) throws ClassNotFoundException, UnmodifiableClassException {
+    if(IgniteAgent.INSTRUMENTATION != null) {
+      IgniteAgent.INSTRUMENTATION.redefineClasses(definitions);
+      return;
+    }
+
+    throw new IllegalStateException("Unable to redefine classes.");
+  }
+
   /**
    * Adds a jar {@link Path} to this agent.
    *
@@ -26,36 +26,62 @@ package space.vectrix.ignite.launch;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.JarURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.FabricUtil;
+import org.spongepowered.asm.mixin.Mixins;
+import org.spongepowered.asm.mixin.transformer.Config;
 import org.tinylog.Logger;
 import space.vectrix.ignite.Blackboard;
 import space.vectrix.ignite.IgniteBootstrap;
+import space.vectrix.ignite.agent.IgniteAgent;
+import space.vectrix.ignite.launch.ember.ClassDataCache;
 import space.vectrix.ignite.launch.ember.EmberClassLoader;
+import space.vectrix.ignite.launch.ember.EmberHotSwap;
 import space.vectrix.ignite.launch.ember.EmberTransformer;
 import space.vectrix.ignite.launch.ember.LaunchService;
+import space.vectrix.ignite.launch.ember.TransformBaker;
+import space.vectrix.ignite.launch.ember.TransformCache;
+import space.vectrix.ignite.launch.ember.TransformDependencies;
+import space.vectrix.ignite.launch.ember.TransformMetrics;
+import space.vectrix.ignite.launch.ember.TransformerService;
+import space.vectrix.ignite.launch.transformer.DebugTransformerImpl;
+import space.vectrix.ignite.launch.transformer.MixinCosts;
+import space.vectrix.ignite.launch.transformer.MixinTransformerImpl;
+import space.vectrix.ignite.mod.ModContainer;
 import space.vectrix.ignite.mod.ModResource;
 import space.vectrix.ignite.mod.ModResourceLocator;
 import space.vectrix.ignite.mod.ModsImpl;
+import space.vectrix.ignite.util.BlackboardMap;
 import space.vectrix.ignite.util.ClassLoaders;
+import space.vectrix.ignite.util.IgniteConstants;
 import space.vectrix.ignite.util.IgniteExclusions;
 
 /**
@@ -65,13 +91,51 @@ import space.vectrix.ignite.util.IgniteExclusions;
  * @since 1.0.0
  */
 public final class LaunchImpl implements LaunchService {
+  private static final BlackboardMap.@NotNull Key<Boolean> CACHE = Blackboard.key("ignite.cache", Boolean.class, false);
+  private static final BlackboardMap.@NotNull Key<Path> CACHE_DIRECTORY = Blackboard.key("ignite.cache.directory", Path.class, Paths.get("./.ignite/cache"));
+  private static final BlackboardMap.@NotNull Key<Integer> CACHE_SIZE = Blackboard.key("ignite.cache.size", Integer.class, 512);
+  private static final BlackboardMap.@NotNull Key<Integer> CLASS_CACHE_SIZE = Blackboard.key("ignite.class.cache.size", Integer.class, 64);
+  private static final BlackboardMap.@NotNull Key<Boolean> TRUSTED_JARS = Blackboard.key("ignite.jars.trusted", Boolean.class, false);
+  private static final BlackboardMap.@NotNull Key<Boolean> RESTRICT_TRANSFORMATION = Blackboard.key("ignite.transform.restrict", Boolean.class, false);
+  private static final BlackboardMap.@NotNull Key<String> TRANSFORMATION_INCLUDES = Blackboard.key("ignite.transform.include", String.class, "");
+  private static final BlackboardMap.@NotNull Key<String> TRANSFORMATION_EXCLUDES = Blackboard.key("ignite.transform.exclude", String.class, "");
+  private static final BlackboardMap.@NotNull Key<Boolean> TRANSFORM_AHEAD = Blackboard.key("ignite.transform.ahead", Boolean.class, false);
+  private static final BlackboardMap.@NotNull Key<Integer> TRANSFORM_AHEAD_THREADS = Blackboard.key("ignite.transform.ahead.threads", Integer.class, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  private static final BlackboardMap.@NotNull Key<String> DEBUG_STRIP = Blackboard.key("ignite.debug.strip", String.class, "");
+  private static final BlackboardMap.@NotNull Key<Boolean> HOT_SWAP = Blackboard.key("ignite.mixin.hotswap", Boolean.class, false);
+  private static final BlackboardMap.@NotNull Key<Boolean> BAKE = Blackboard.key("ignite.bake", Boolean.class, false);
+  private static final BlackboardMap.@NotNull Key<Path> BAKE_FILE = Blackboard.key("ignite.bake.file", Path.class, Paths.get("./.ignite/baked.jar"));
+
   private static final String JAVA_HOME = System.getProperty("java.home");
-  private static final @SuppressWarnings("OptionalUsedAsFieldOrParameterType") Optional<Manifest> DEFAULT_MANIFEST = Optional.of(new Manifest());
+  private static final String DEPENDENCIES_FILE = "dependencies.bin";
+  private static final int REPORTED_COSTS = 5;
+  private static final String TRANSFORMER_SERVICE = "META-INF/services/" + TransformerService.class.getName();
 
-  private final ConcurrentMap<String, Optional<Manifest>> manifests = new ConcurrentHashMap<>();
+  private EmberClassLoader classLoader;
+  private EmberTransformer transformer;
+  private byte[] fingerprint;
+  private TransformDependencies dependencies;
+  private Map<Config, Set<String>> mixinTargets = Collections.emptyMap();
+  private boolean mixins;
 
   @Override
   public void initialize() {
+    // Populate the blackboard.
+    Blackboard.compute(LaunchImpl.CACHE, () -> Boolean.parseBoolean(System.getProperty(LaunchImpl.CACHE.name())));
+    Blackboard.compute(LaunchImpl.CACHE_DIRECTORY, () -> Paths.get(System.getProperty(LaunchImpl.CACHE_DIRECTORY.name())));
+    Blackboard.compute(LaunchImpl.CACHE_SIZE, () -> Integer.parseInt(System.getProperty(LaunchImpl.CACHE_SIZE.name())));
+    Blackboard.compute(LaunchImpl.CLASS_CACHE_SIZE, () -> Integer.parseInt(System.getProperty(LaunchImpl.CLASS_CACHE_SIZE.name())));
+    Blackboard.compute(LaunchImpl.TRUSTED_JARS, () -> Boolean.parseBoolean(System.getProperty(LaunchImpl.TRUSTED_JARS.name())));
+    Blackboard.compute(LaunchImpl.RESTRICT_TRANSFORMATION, () -> Boolean.parseBoolean(System.getProperty(LaunchImpl.RESTRICT_TRANSFORMATION.name())));
+    Blackboard.compute(LaunchImpl.TRANSFORMATION_INCLUDES, () -> System.getProperty(LaunchImpl.TRANSFORMATION_INCLUDES.name()));
+    Blackboard.compute(LaunchImpl.TRANSFORMATION_EXCLUDES, () -> System.getProperty(LaunchImpl.TRANSFORMATION_EXCLUDES.name()));
+    Blackboard.compute(LaunchImpl.TRANSFORM_AHEAD, () -> Boolean.parseBoolean(System.getProperty(LaunchImpl.TRANSFORM_AHEAD.name())));
+    Blackboard.compute(LaunchImpl.TRANSFORM_AHEAD_THREADS, () -> Integer.parseInt(System.getProperty(LaunchImpl.TRANSFORM_AHEAD_THREADS.name())));
+    Blackboard.compute(LaunchImpl.DEBUG_STRIP, () -> System.getProperty(LaunchImpl.DEBUG_STRIP.name()));
+    Blackboard.compute(LaunchImpl.HOT_SWAP, () -> Boolean.parseBoolean(System.getProperty(LaunchImpl.HOT_SWAP.name())));
+    Blackboard.compute(LaunchImpl.BAKE, () -> Boolean.parseBoolean(System.getProperty(LaunchImpl.BAKE.name())));
+    Blackboard.compute(LaunchImpl.BAKE_FILE, () -> Paths.get(System.getProperty(LaunchImpl.BAKE_FILE.name())));
+
     // Initialize the mod engine.
     final ModsImpl engine = IgniteBootstrap.instance().engine();
     if(engine.locateResources()) {
@@ -81,10 +145,34 @@ public final class LaunchImpl implements LaunchService {
 
       Logger.info("Found {} mod(s): {}", names.size(), String.join(", ", names));
     }
+
+    // Mixin is only needed if a mod provides mixin configurations.
+    this.mixins = engine.mixins();
+
+    // Mixin only keeps the state needed to reload mixins when hot swapping.
+    if(Blackboard.raw(LaunchImpl.HOT_SWAP)) {
+      System.setProperty("mixin.hotSwap", "true");
+    }
+  }
+
+  @Override
+  public boolean mixins() {
+    return this.mixins;
   }
 
   @Override
   public void configure(final @NotNull EmberClassLoader classLoader, final @NotNull EmberTransformer transformer) {
+    this.classLoader = classLoader;
+    this.transformer = transformer;
+
+    // Skip verifying the signatures of the transformation paths if they are
+    // trusted.
+    classLoader.trustedJars(Blackboard.raw(LaunchImpl.TRUSTED_JARS));
+
+    // Keep the class bytes read for mixin until the class is loaded.
+    classLoader.classDataCache(Blackboard.raw(LaunchImpl.CLASS_CACHE_SIZE) * 1024L * 1024L);
+
+    final List<Path> paths = new ArrayList<>();
     for(final URL url : ClassLoaders.systemClassPaths()) {
       try {
         final URI uri = url.toURI();
@@ -93,16 +181,89 @@ public final class LaunchImpl implements LaunchService {
           continue;
         }
 
-        classLoader.addTransformationPath(Paths.get(url.toURI()));
+        final Path path = Paths.get(uri);
+        classLoader.addTransformationPath(path);
+        paths.add(path);
         Logger.debug("Added transformation path for: {}", url);
       } catch(final URISyntaxException | IOException exception) {
         Logger.error(exception, "Failed to add transformation path for: {}", url);
       }
     }
 
-    classLoader.addTransformationFilter(this.packageFilter());
-    classLoader.addManifestLocator(this.manifestLocator());
-    transformer.addResourceExclusion(this.resourceFilter());
+    // Add the transformation exclusions.
+    for(final String exclusion : IgniteExclusions.TRANSFORMATION_EXCLUDED_PACKAGES) {
+      classLoader.addTransformationExclusion(exclusion);
+    }
+
+    for(final String exclusion : Blackboard.raw(LaunchImpl.TRANSFORMATION_EXCLUDES).split(",")) {
+      if(!exclusion.trim().isEmpty()) classLoader.addTransformationExclusion(exclusion.trim());
+    }
+
+    IgniteBootstrap.instance().engine().resolveExclusions(classLoader);
+
+    for(final String exclusion : IgniteExclusions.TRANSFORMATION_EXCLUDED_RESOURCES) {
+      transformer.addResourceExclusion(exclusion);
+    }
+
+    // Add the packages to strip debug attributes from.
+    final DebugTransformerImpl debugTransformer = transformer.transformer(DebugTransformerImpl.class);
+    if(debugTransformer != null) {
+      for(final String strip : Blackboard.raw(LaunchImpl.DEBUG_STRIP).split(",")) {
+        if(strip.trim().isEmpty()) continue;
+
+        final int separator = strip.indexOf('=');
+        if(separator < 0) {
+          debugTransformer.strip(strip.trim(), DebugTransformerImpl.DEFAULT);
+        } else {
+          debugTransformer.strip(strip.substring(0, separator).trim(), DebugTransformerImpl.attributes(strip.substring(separator + 1)));
+        }
+      }
+    }
+
+    classLoader.addPathManifestLocator(this.manifestLocator());
+
+    // Hot swapped mixins change the transformations, so the cached and baked
+    // transformations are not used.
+    final boolean hotSwap = Blackboard.raw(LaunchImpl.HOT_SWAP);
+    final boolean bake = Blackboard.raw(LaunchImpl.BAKE);
+    final Path bakeFile = Blackboard.raw(LaunchImpl.BAKE_FILE);
+    final boolean cache = Blackboard.raw(LaunchImpl.CACHE) && !hotSwap;
+    if(bake || cache || Files.exists(bakeFile)) {
+      // The mods are fingerprinted separately, so only the classes they change
+      // are invalidated when they are changed, added or removed.
+      this.dependencies = new TransformDependencies();
+      final Set<Path> sourcePaths = this.addSources(this.dependencies);
+      this.fingerprint = this.fingerprint(transformer, paths, sourcePaths);
+    }
+
+    if(this.fingerprint == null) {
+      this.dependencies = null;
+      return;
+    }
+
+    // Use the baked transformations, if they were baked from the same inputs.
+    if(!bake && !hotSwap && classLoader.useBakedTransformations(bakeFile, this.fingerprint, this.dependencies)) {
+      Logger.info("Using the baked transformations at: {}", bakeFile);
+      transformer.dependencies(this.dependencies);
+      return;
+    }
+
+    // Read the dependencies recorded by the previous launch.
+    final Path dependenciesFile = Blackboard.raw(LaunchImpl.CACHE_DIRECTORY).resolve(LaunchImpl.DEPENDENCIES_FILE);
+    if(Files.exists(dependenciesFile)) {
+      try {
+        this.dependencies.read(dependenciesFile);
+      } catch(final IOException exception) {
+        Logger.error(exception, "Failed to read the transform dependencies at: {}", dependenciesFile);
+      }
+    }
+
+    transformer.dependencies(this.dependencies);
+
+    // Configure the transformation cache.
+    if(cache) {
+      transformer.cache(this.createCache());
+    }
   }
 
   @Override
@@ -112,12 +273,99 @@ public final class LaunchImpl implements LaunchService {
     // Resolve the wideners.
     engine.resolveWideners(transformer);
 
-    // Resolve the mixins.
-    engine.resolveMixins();
+    if(this.mixins) {
+      // Resolve the mixins.
+      engine.resolveMixins();
+
+      // Index the mixin targets, so only they are offered to mixin.
+      this.indexMixins(transformer);
+    }
+
+    // Record the classes changed by the added or changed mods.
+    if(this.dependencies != null) {
+      this.resolveDependencies(transformer);
+    }
+
+    // Restrict transformation to the jars containing transformation targets.
+    if(Blackboard.raw(LaunchImpl.RESTRICT_TRANSFORMATION)) {
+      this.restrictTransformation(transformer);
+    }
+  }
+
+  @Override
+  public void ready(final @NotNull EmberClassLoader classLoader, final @NotNull EmberTransformer transformer) {
+    // Transform the mixin targets ahead of the game loading them, so the
+    // transformation cost is not paid on the game threads.
+    if(Blackboard.raw(LaunchImpl.TRANSFORM_AHEAD)) {
+      final Set<String> targets = new HashSet<>();
+      for(final Set<String> mixinTargets : this.mixinTargets.values()) {
+        targets.addAll(mixinTargets);
+      }
+
+      final long start = System.nanoTime();
+      final int transformed = classLoader.transformAhead(targets, Blackboard.raw(LaunchImpl.TRANSFORM_AHEAD_THREADS));
+      Logger.info("Transformed {} of {} mixin target(s) ahead of launch in {}ms", transformed, targets.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // The classes read for mixin that have not been loaded by now are mostly
+    // never loaded, so their bytes are released.
+    final ClassDataCache classDataCache = classLoader.classDataCache();
+    if(classDataCache != null) classDataCache.close();
+
+    // Watch the mods for changed mixins, to apply them without a restart.
+    if(Blackboard.raw(LaunchImpl.HOT_SWAP) && this.mixins) {
+      this.watchMixins(classLoader, transformer);
+    }
+  }
+
+  private void watchMixins(final @NotNull EmberClassLoader classLoader, final @NotNull EmberTransformer transformer) {
+    if(!IgniteAgent.canRedefineClasses()) {
+      Logger.warn("Skipped watching for changed mixins, as classes cannot be redefined");
+      return;
+    }
+
+    final List<String> mixinPackages = new ArrayList<>();
+    for(final Config config : this.mixinTargets.keySet()) {
+      mixinPackages.add(config.getConfig().getMixinPackage());
+    }
+
+    final List<Path> paths = new ArrayList<>();
+    for(final ModContainer container : IgniteBootstrap.instance().engine().containers()) {
+      paths.add(container.resource().path());
+    }
+
+    try {
+      final int watched = new EmberHotSwap(classLoader, transformer, mixinPackages).watch(paths);
+      if(watched > 0) {
+        Logger.info("Watching {} mod(s) loaded from class directories for changed mixins", watched);
+      } else {
+        Logger.warn("Skipped watching for changed mixins, as only mods loaded from class directories can be hot swapped");
+      }
+    } catch(final IOException exception) {
+      Logger.error(exception, "Failed to watch for changed mixins");
+    }
   }
 
   @Override
   public @NotNull Callable<Void> launch(final @NotNull String@NotNull [] arguments, final @NotNull EmberClassLoader loader) {
+    // The game may keep running after its main method returns, so the
+    // transformations are reported when it shuts down.
+    Runtime.getRuntime().addShutdownHook(new Thread(this::report, "Ember Reporter"));
+
+    // Bake the transformations instead of launching the game.
+    if(Blackboard.raw(LaunchImpl.BAKE)) {
+      return () -> {
+        if(this.fingerprint == null) {
+          throw new IllegalStateException("Failed to fingerprint the transformation inputs!");
+        }
+
+        final Path bakeFile = Blackboard.raw(LaunchImpl.BAKE_FILE);
+        final int baked = new TransformBaker(loader, this.transformer).bake(bakeFile, this.fingerprint, this.dependencies);
+        Logger.info("Baked {} class(es) to: {}", baked, bakeFile);
+        return null;
+      };
+    }
+
     return () -> {
       final Path gameJar = Blackboard.raw(Blackboard.GAME_JAR);
       final String gameTarget = Blackboard.raw(Blackboard.GAME_TARGET);
@@ -134,67 +382,264 @@ public final class LaunchImpl implements LaunchService {
     };
   }
 
-  private @NotNull Predicate<String> packageFilter() {
-    return name -> {
-      for(final String test : IgniteExclusions.TRANSFORMATION_EXCLUDED_PACKAGES) {
-        if(name.startsWith(test)) {
-          return false;
-        }
+  private void report() {
+    // Report the classes skipped before parsing.
+    final long examined = this.transformer.examined();
+    if(examined > 0) {
+      final long unclaimed = this.transformer.unclaimed();
+      Logger.info("Transformation: {} class(es), {} unclaimed and not parsed ({}%)", examined, unclaimed, unclaimed * 100 / examined);
+    }
+
+    // Report the transformation cache usage.
+    final TransformCache cache = this.transformer.cache();
+    if(cache != null) {
+      Logger.info("Transformation cache: {} hit(s), {} miss(es), {} write(s), {} eviction(s)", cache.hits(), cache.misses(), cache.writes(), cache.evictions());
+    }
+
+    // Report the class data cache usage.
+    final ClassDataCache classDataCache = this.classLoader.classDataCache();
+    if(classDataCache != null) {
+      final long lookups = classDataCache.hits() + classDataCache.misses();
+      Logger.info("Class data cache: {} hit(s), {} miss(es) ({}% hit rate), {} eviction(s)", classDataCache.hits(), classDataCache.misses(),
+        lookups > 0 ? classDataCache.hits() * 100 / lookups : 0, classDataCache.evictions());
+    }
+
+    // Report the time spent in each transformer.
+    for(final TransformMetrics.Stage stage : this.transformer.metrics().stages()) {
+      Logger.info("Transformer {} ({}): {} of {} claimed, {} transformed, {} failed, {}ms total, {}ms waiting, {}us p50, {}us p99, {} -> {} bytes",
+        stage.name(), stage.phase(), stage.claimed(), stage.offered(), stage.transformed(), stage.exceptions(),
+        TimeUnit.NANOSECONDS.toMillis(stage.time()), TimeUnit.NANOSECONDS.toMillis(stage.waitTime()),
+        TimeUnit.NANOSECONDS.toMicros(stage.percentile(0.5D)), TimeUnit.NANOSECONDS.toMicros(stage.percentile(0.99D)),
+        stage.inputBytes(), stage.outputBytes());
+    }
+
+    // Report the mods and mixins that took the longest to apply.
+    final MixinTransformerImpl mixinTransformer = this.transformer.transformer(MixinTransformerImpl.class);
+    if(mixinTransformer != null) {
+      final MixinCosts costs = mixinTransformer.costs();
+      for(final MixinCosts.Cost cost : LaunchImpl.top(costs.mods())) {
+        Logger.info("Mixin cost of mod {}: {} application(s), {}ms", cost.name(), cost.applications(), TimeUnit.NANOSECONDS.toMillis(cost.time()));
       }
 
-      return true;
-    };
+      for(final MixinCosts.Cost cost : LaunchImpl.top(costs.mixins())) {
+        Logger.info("Mixin cost of {}: {} application(s), {}ms", cost.name(), cost.applications(), TimeUnit.NANOSECONDS.toMillis(cost.time()));
+      }
+    }
+
+    // Report the debug attributes stripped.
+    final DebugTransformerImpl debugTransformer = this.transformer.transformer(DebugTransformerImpl.class);
+    if(debugTransformer != null && debugTransformer.strippedClasses() > 0) {
+      Logger.info("Stripped approximately {} KiB of debug attributes from {} class(es)", debugTransformer.strippedBytes() / 1024, debugTransformer.strippedClasses());
+    }
   }
 
-  private @NotNull Predicate<String> resourceFilter() {
-    return path -> {
-      for(final String test : IgniteExclusions.TRANSFORMATION_EXCLUDED_RESOURCES) {
-        if(path.startsWith(test)) {
-          return false;
-        }
+  private void indexMixins(final @NotNull EmberTransformer transformer) {
+    final Map<Config, Set<String>> targets = new HashMap<>();
+    final ClassDataCache classDataCache = this.classLoader.classDataCache();
+    for(final Config config : Mixins.getConfigs()) {
+      final String mixinPackage = config.getConfig().getMixinPackage();
+      targets.put(config, this.classLoader.mixinTargets(mixinPackage));
+
+      // Mixin classes are read by mixin, but never loaded.
+      if(classDataCache != null) classDataCache.exclude(mixinPackage.endsWith(".") ? mixinPackage : mixinPackage.concat("."));
+    }
+
+    this.mixinTargets = targets;
+
+    final MixinTransformerImpl mixinTransformer = transformer.transformer(MixinTransformerImpl.class);
+    if(mixinTransformer != null) targets.forEach((config, configTargets) -> mixinTransformer.index(config.getName(), configTargets));
+  }
+
+  private static @NotNull List<MixinCosts.Cost> top(final @NotNull List<MixinCosts.Cost> costs) {
+    return costs.subList(0, Math.min(costs.size(), LaunchImpl.REPORTED_COSTS));
+  }
+
+  private void resolveDependencies(final @NotNull EmberTransformer transformer) {
+    final MixinTransformerImpl mixinTransformer = transformer.transformer(MixinTransformerImpl.class);
+    if(mixinTransformer != null) mixinTransformer.dependencies(this.dependencies);
+
+    // The classes the mixins of an unchanged mod change are known from the
+    // previous launch, otherwise they are found from the mixin targets.
+    for(final Map.Entry<Config, Set<String>> entry : this.mixinTargets.entrySet()) {
+      final String id = FabricUtil.getModId(entry.getKey().getConfig(), null);
+      if(id == null || !this.dependencies.changed(id)) continue;
+
+      for(final String target : entry.getValue()) {
+        this.dependencies.target(id, target);
       }
+    }
 
-      return true;
-    };
+    this.dependencies.resolve();
+
+    // Write the dependencies now, and again on shutdown to include the mixins
+    // applied while running.
+    this.writeDependencies();
+    Runtime.getRuntime().addShutdownHook(new Thread(this::writeDependencies, "Ember Dependency Writer"));
   }
 
-  private @NotNull Function<URLConnection, Optional<Manifest>> manifestLocator() {
+  private void writeDependencies() {
+    final Path dependenciesFile = Blackboard.raw(LaunchImpl.CACHE_DIRECTORY).resolve(LaunchImpl.DEPENDENCIES_FILE);
+    try {
+      this.dependencies.write(dependenciesFile);
+    } catch(final IOException exception) {
+      Logger.error(exception, "Failed to write the transform dependencies at: {}", dependenciesFile);
+    }
+  }
+
+  private void restrictTransformation(final @NotNull EmberTransformer transformer) {
+    final Set<String> targets = new HashSet<>();
+    final List<String> prefixes = new ArrayList<>();
+    for(final TransformerService service : transformer.transformers()) {
+      // The mixin targets are found from the mixin packages below.
+      if(service instanceof MixinTransformerImpl) continue;
+
+      final Collection<String> serviceTargets = service.targets();
+      final Collection<String> servicePrefixes = service.targetPrefixes();
+      if(serviceTargets == null && servicePrefixes == null) {
+        Logger.info("Skipped restricting transformation, as {} may transform any class", service.getClass().getName());
+        return;
+      }
+
+      if(serviceTargets != null) targets.addAll(serviceTargets);
+      if(servicePrefixes != null) prefixes.addAll(servicePrefixes);
+    }
+
+    for(final String include : Blackboard.raw(LaunchImpl.TRANSFORMATION_INCLUDES).split(",")) {
+      final String prefix = include.trim();
+      if(!prefix.isEmpty()) prefixes.add(prefix);
+    }
+
+    final List<String> mixinPackages = new ArrayList<>();
+    for(final Config config : this.mixinTargets.keySet()) {
+      mixinPackages.add(config.getConfig().getMixinPackage());
+    }
+
+    final int restricted = this.classLoader.restrictTransformation(targets, prefixes, mixinPackages);
+    Logger.info("Excluded {} transformation path(s) without transformation targets", restricted);
+  }
+
+  private @NotNull Function<Path, Optional<Manifest>> manifestLocator() {
     final ModsImpl engine = IgniteBootstrap.instance().engine();
 
-    return connection -> {
-      if(connection instanceof JarURLConnection) {
-        final URL url = ((JarURLConnection) connection).getJarFileURL();
-        final Optional<Manifest> manifest = this.manifests.computeIfAbsent(url.toString(), key -> {
-          for(final ModResource resource : engine.resources()) {
-            if(!resource.locator().equals(ModResourceLocator.JAVA_LOCATOR)) {
-              continue;
-            }
-
-            try {
-              if(resource.path().toAbsolutePath().normalize().equals(Paths.get(url.toURI()).toAbsolutePath().normalize())) {
-                return Optional.ofNullable(resource.manifest());
-              }
-            } catch(final URISyntaxException exception) {
-              Logger.error(exception, "Failed to load manifest from jar: {}", url);
-            }
-          }
+    // Index the mod manifests by path, so each jar is a single lookup.
+    final Map<Path, Manifest> manifests = new HashMap<>();
+    for(final ModResource resource : engine.resources()) {
+      if(!resource.locator().equals(ModResourceLocator.JAVA_LOCATOR) || resource.manifest() == null) {
+        continue;
+      }
 
-          return LaunchImpl.DEFAULT_MANIFEST;
-        });
+      manifests.put(resource.path().toAbsolutePath().normalize(), resource.manifest());
+    }
 
-        try {
-          if(manifest == LaunchImpl.DEFAULT_MANIFEST) {
-            return Optional.ofNullable(((JarURLConnection) connection).getManifest());
-          } else {
-            return manifest;
-          }
-        } catch(final IOException exception) {
-          Logger.error(exception, "Failed to load manifest from connection for: {}", url);
-        }
+    return path -> Optional.ofNullable(manifests.get(path.toAbsolutePath().normalize()));
+  }
+
+  private @Nullable TransformCache createCache() {
+    final Path directory = Blackboard.raw(LaunchImpl.CACHE_DIRECTORY);
+
+    try {
+      final TransformCache cache = new TransformCache(directory, this.fingerprint, Blackboard.raw(LaunchImpl.CACHE_SIZE) * 1024L * 1024L, this.dependencies);
+      Logger.info("Using the transformation cache at: {}", directory);
+      return cache;
+    } catch(final IOException exception) {
+      Logger.error(exception, "Failed to create the transformation cache at: {}", directory);
+      return null;
+    }
+  }
+
+  private @NotNull Set<Path> addSources(final @NotNull TransformDependencies dependencies) {
+    final ModsImpl engine = IgniteBootstrap.instance().engine();
+    final Set<Path> sourcePaths = new HashSet<>();
+    for(final ModContainer container : engine.containers()) {
+      final ModResource resource = container.resource();
+      if(!resource.locator().equals(ModResourceLocator.JAVA_LOCATOR)) continue;
+
+      // Mods providing a transformer may change any class.
+      final Path root = resource.path();
+      final Path service = Files.isDirectory(root) ? root.resolve(LaunchImpl.TRANSFORMER_SERVICE) : resource.fileSystem().getPath(LaunchImpl.TRANSFORMER_SERVICE);
+      if(Files.exists(service)) continue;
+
+      try {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        this.fingerprint(digest, resource.path());
+        dependencies.source(container.id(), digest.digest());
+        sourcePaths.add(resource.path().toAbsolutePath().normalize());
+      } catch(final NoSuchAlgorithmException | IOException exception) {
+        Logger.error(exception, "Failed to fingerprint the mod: {}", container.id());
       }
+    }
 
-      return Optional.empty();
-    };
+    return sourcePaths;
+  }
+
+  private byte@Nullable [] fingerprint(final @NotNull EmberTransformer transformer, final @NotNull List<Path> paths, final @NotNull Set<Path> sourcePaths) {
+    final ModsImpl engine = IgniteBootstrap.instance().engine();
+
+    try {
+      // The fingerprint covers everything that can change the output of a
+      // transformation, other than the input class bytes.
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(String.valueOf(IgniteConstants.IMPLEMENTATION_VERSION).getBytes(StandardCharsets.UTF_8));
+
+      final List<String> transformers = new ArrayList<>();
+      for(final TransformerService service : transformer.transformers()) {
+        transformers.add(service.getClass().getName());
+      }
+
+      transformers.sort(String::compareTo);
+      for(final String name : transformers) {
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+      }
+
+      digest.update(Blackboard.raw(LaunchImpl.DEBUG_STRIP).getBytes(StandardCharsets.UTF_8));
+
+      for(final ModResource resource : engine.resources()) {
+        if(sourcePaths.contains(resource.path().toAbsolutePath().normalize())) continue;
+
+        digest.update(resource.locator().getBytes(StandardCharsets.UTF_8));
+        this.fingerprint(digest, resource.path());
+      }
+
+      for(final Path path : paths) {
+        if(sourcePaths.contains(path.toAbsolutePath().normalize())) continue;
+
+        this.fingerprint(digest, path);
+      }
+
+      return digest.digest();
+    } catch(final NoSuchAlgorithmException | IOException exception) {
+      Logger.error(exception, "Failed to fingerprint the transformation inputs");
+      return null;
+    }
+  }
+
+  private void fingerprint(final @NotNull MessageDigest digest, final @NotNull Path path) throws IOException {
+    final Path root = path.toAbsolutePath().normalize();
+    digest.update(root.toString().getBytes(StandardCharsets.UTF_8));
+    if(!Files.isDirectory(root)) {
+      LaunchImpl.fingerprintAttributes(digest, root);
+      return;
+    }
+
+    // The size and modified time of a directory don't change when a file in
+    // it does, so every file is fingerprinted in a stable order.
+    final List<Path> files;
+    try(final Stream<Path> stream = Files.walk(root)) {
+      files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    }
+
+    for(final Path file : files) {
+      digest.update(root.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+      LaunchImpl.fingerprintAttributes(digest, file);
+    }
+  }
+
+  private static void fingerprintAttributes(final @NotNull MessageDigest digest, final @NotNull Path file) throws IOException {
+    final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    digest.update(ByteBuffer.allocate(16)
+      .putLong(attributes.size())
+      .putLong(attributes.lastModifiedTime().toMillis())
+      .array());
   }
 
   private boolean transformable(final @NotNull URI uri) throws URISyntaxException, IOException {
@@ -0,0 +1,195 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents an in-memory cache of the class bytes read for mixin, so they
+ * are not read again when the class is loaded.
+ *
+ * <p>An entry is removed once its class is loaded. Entries that are no longer
+ * used are evicted, least recently used first, once the cache exceeds its
+ * maximum size, which is limited to a fraction of the maximum heap size.</p>
+ *
+ * <p>Classes that are read but never loaded, such as mixin classes, are
+ * excluded from the cache. The cache is closed once the launch is ready, as
+ * the entries left are unlikely to be loaded.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public final class ClassDataCache {
+  private static final long HEAP_FRACTION = 16;
+
+  private final Map<String, byte[]> entries = new LinkedHashMap<>(256, 0.75F, true);
+  private final TransformExclusions exclusions = new TransformExclusions();
+  private final long maximumSize;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  // Class bytes are read while holding a class loading lock, so this is a
+  // lock rather than a monitor to avoid pinning virtual threads.
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private long size;
+  private volatile boolean closed;
+
+  /* package */ ClassDataCache(final long maximumSize) {
+    this.maximumSize = Math.min(maximumSize, Runtime.getRuntime().maxMemory() / ClassDataCache.HEAP_FRACTION);
+  }
+
+  /**
+   * Returns the number of cache hits.
+   *
+   * @return the cache hits
+   * @since 1.1.0
+   */
+  public long hits() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Returns the number of cache misses.
+   *
+   * @return the cache misses
+   * @since 1.1.0
+   */
+  public long misses() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Returns the number of entries evicted to keep the cache within its
+   * maximum size.
+   *
+   * @return the cache evictions
+   * @since 1.1.0
+   */
+  public long evictions() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * Returns the maximum size of the cache in bytes.
+   *
+   * @return the maximum size
+   * @since 1.1.0
+   */
+  public long maximumSize() {
+    return this.maximumSize;
+  }
+
+  /**
+   * Excludes the classes matching the given rule from the cache.
+   *
+   * @param rule the exclusion rule
+   * @see TransformExclusions
+   * @since 1.1.0
+   */
+  public void exclude(final @NotNull String rule) {
+    this.exclusions.add(rule);
+  }
+
+  /**
+   * Removes every entry, and stops caching classes.
+   *
+   * @since 1.1.0
+   */
+  public void close() {
+    this.closed = true;
+
+    this.lock.lock();
+    try {
+      this.entries.clear();
+      this.size = 0;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /* package */ byte@Nullable [] get(final @NotNull String name, final boolean remove) {
+    // A closed cache is no longer looked up, so it doesn't count misses.
+    if(this.closed) return null;
+
+    final byte[] data;
+    this.lock.lock();
+    try {
+      data = remove ? this.entries.remove(name) : this.entries.get(name);
+      if(data != null && remove) this.size -= data.length;
+    } finally {
+      this.lock.unlock();
+    }
+
+    if(data == null) {
+      this.misses.increment();
+      return null;
+    }
+
+    this.hits.increment();
+    return data;
+  }
+
+  /* package */ void put(final @NotNull String name, final byte@NotNull [] data) {
+    if(this.closed || data.length > this.maximumSize || this.exclusions.excluded(name)) return;
+
+    this.lock.lock();
+    try {
+      final byte[] previous = this.entries.put(name, data);
+      if(previous != null) this.size -= previous.length;
+      this.size += data.length;
+
+      // Evict the least recently used entries over the size cap.
+      final Iterator<byte[]> iterator = this.entries.values().iterator();
+      while(this.size > this.maximumSize && iterator.hasNext()) {
+        this.size -= iterator.next().length;
+        iterator.remove();
+        this.evictions.increment();
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /* package */ void remove(final @NotNull String name) {
+    if(this.closed) return;
+
+    this.lock.lock();
+    try {
+      final byte[] data = this.entries.remove(name);
+      if(data != null) this.size -= data.length;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Represents a database of the class hierarchy, read from the class bytes
+ * without loading any classes.
+ *
+ * <p>Entries are read from the raw class bytes when they are first needed,
+ * and replaced with the transformed header when a class is written, so
+ * interfaces added by transformers such as mixin are included.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+/* package */ final class ClassHierarchy {
+  private static final String OBJECT = "java/lang/Object";
+  private static final Entry MISSING = new Entry(0, null, new String[0]);
+
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Function<String, byte[]> locator;
+
+  /* package */ ClassHierarchy(final @NotNull Function<String, byte[]> locator) {
+    this.locator = locator;
+  }
+
+  /* package */ void update(final @NotNull String name, final int access, final @Nullable String superName, final String@Nullable [] interfaces) {
+    this.entries.put(name, new Entry(access, superName, interfaces != null ? interfaces : new String[0]));
+  }
+
+  /* package */ @Nullable String commonSuperClass(final @NotNull String first, final @NotNull String second) {
+    final Entry firstEntry = this.entry(first);
+    final Entry secondEntry = this.entry(second);
+    if(firstEntry == null || secondEntry == null) return null;
+
+    // This follows the same rules as the class loading implementation in
+    // ClassWriter, returning null if any class in the hierarchy is unknown.
+    final Boolean firstAssignable = this.assignable(first, second);
+    if(firstAssignable == null) return null;
+    if(firstAssignable) return first;
+
+    final Boolean secondAssignable = this.assignable(second, first);
+    if(secondAssignable == null) return null;
+    if(secondAssignable) return second;
+
+    if(firstEntry.isInterface() || secondEntry.isInterface()) return ClassHierarchy.OBJECT;
+
+    String current = first;
+    while(true) {
+      final Entry entry = this.entry(current);
+      if(entry == null) return null;
+
+      current = entry.superName;
+      if(current == null) return ClassHierarchy.OBJECT;
+
+      final Boolean assignable = this.assignable(current, second);
+      if(assignable == null) return null;
+      if(assignable) return current;
+    }
+  }
+
+  private @Nullable Boolean assignable(final @NotNull String target, final @NotNull String source) {
+    if(target.equals(ClassHierarchy.OBJECT)) return true;
+
+    final Deque<String> pending = new ArrayDeque<>();
+    final Set<String> visited = new HashSet<>();
+    pending.add(source);
+    while(!pending.isEmpty()) {
+      final String name = pending.poll();
+      if(!visited.add(name)) continue;
+      if(name.equals(target)) return true;
+
+      final Entry entry = this.entry(name);
+      if(entry == null) return null;
+      if(entry.superName != null) pending.add(entry.superName);
+      Collections.addAll(pending, entry.interfaces);
+    }
+
+    return false;
+  }
+
+  private @Nullable Entry entry(final @NotNull String name) {
+    final Entry entry = this.entries.get(name);
+    if(entry != null) return entry != ClassHierarchy.MISSING ? entry : null;
+
+    final byte[] bytes = this.locator.apply(name);
+    if(bytes == null) {
+      this.entries.putIfAbsent(name, ClassHierarchy.MISSING);
+      return null;
+    }
+
+    // Only the class header is read.
+    final ClassReader reader = new ClassReader(bytes);
+    final Entry created = new Entry(reader.getAccess(), reader.getSuperName(), reader.getInterfaces());
+    final Entry existing = this.entries.putIfAbsent(name, created);
+    return existing != null && existing != ClassHierarchy.MISSING ? existing : created;
+  }
+
+  private static final class Entry {
+    private final int access;
+    private final String superName;
+    private final String[] interfaces;
+
+    private Entry(final int access, final @Nullable String superName, final String@NotNull [] interfaces) {
+      this.access = access;
+      this.superName = superName;
+      this.interfaces = interfaces;
+    }
+
+    private boolean isInterface() {
+      return (this.access & Opcodes.ACC_INTERFACE) != 0;
+    }
+  }
+}
@@ -31,6 +31,7 @@ import org.jetbrains.annotations.NotNull;
 import org.spongepowered.asm.launch.MixinBootstrap;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.tinylog.Logger;
+import space.vectrix.ignite.launch.transformer.MixinTransformerImpl;
 import space.vectrix.ignite.util.IgniteCollections;
 
 /**
@@ -88,22 +89,44 @@ public final class Ember {
 
     // Create the class loader.
     this.loader = new EmberClassLoader(this.transformer);
+    this.transformer.hierarchy(new ClassHierarchy(name -> {
+      final EmberClassLoader.ClassData data = this.loader.classData(name.replace('/', '.'), TransformPhase.MIXIN);
+      return data != null ? data.data() : null;
+    }));
     Thread.currentThread().setContextClassLoader(this.loader);
 
     // Configure the class loader.
     this.service.configure(this.loader, this.transformer);
 
-    // Start the mixin bootstrap.
-    MixinBootstrap.init();
-
-    // Prepare the launch.
-    this.service.prepare(this.transformer);
-
-    // Complete the mixin bootstrap.
-    this.completeMixinBootstrap();
-
-    // Initialize mixin extras.
-    MixinExtrasBootstrap.init();
+    // Mixin is not needed when the transformations have been baked.
+    if(!this.loader.bakedTransformations()) {
+      // Mixin is not needed when there are no mixins to apply.
+      final boolean mixins = this.service.mixins();
+      if(mixins) {
+        // Start the mixin bootstrap.
+        MixinBootstrap.init();
+      } else {
+        Logger.info("Skipped the mixin bootstrap, as there are no mixins to apply");
+        this.transformer.remove(MixinTransformerImpl.class);
+      }
+
+      // Prepare the launch.
+      this.service.prepare(this.transformer);
+
+      if(mixins) {
+        // Complete the mixin bootstrap.
+        this.completeMixinBootstrap();
+
+        // Initialize mixin extras.
+        MixinExtrasBootstrap.init();
+      } else {
+        // Initialize the transformers.
+        this.prepareTransformers();
+      }
+
+      // Complete the launch preparation.
+      this.service.ready(this.loader, this.transformer);
+    }
 
     // Execute the launch.
     try {
@@ -125,6 +148,10 @@ public final class Ember {
     }
 
     // Initialize the mixin transformer now mixin is in the correct state.
+    this.prepareTransformers();
+  }
+
+  private void prepareTransformers() {
     for(final TransformerService transformer : this.transformer.transformers()) {
       transformer.prepare();
     }
@@ -26,22 +26,32 @@ package space.vectrix.ignite.launch.ember;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.JarURLConnection;
-import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
-import java.security.cert.Certificate;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -56,50 +66,74 @@ import static java.util.Objects.requireNonNull;
  * @since 1.0.0
  */
 public final class EmberClassLoader extends ClassLoader {
-  private static final class DynamicClassLoader extends URLClassLoader {
-    static {
-      ClassLoader.registerAsParallelCapable();
-    }
-
-    /* package */ DynamicClassLoader(final URL @NotNull [] urls) {
-      super(urls, new DummyClassLoader());
-    }
-
-    @Override
-    public void addURL(final @NotNull URL url) {
-      super.addURL(url);
-    }
-  }
-
-  private static final List<String> EXCLUDE_PACKAGES = Arrays.asList(
-    "java.", "javax.", "com.sun.", "org.objectweb.asm."
-  );
+  private static final String[] EXCLUDE_PACKAGES = {"java.", "javax.", "com.sun.", "org.objectweb.asm."};
 
   static {
     ClassLoader.registerAsParallelCapable();
   }
 
-  private final Object lock = new Object();
+  private final ConcurrentMap<String, ReentrantLock> classLocks = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, ReentrantLock> packageLocks = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Package> packages = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Class<?>> delegated = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, ClassData> transformed = new ConcurrentHashMap<>();
+  private final TransformExclusions exclusions = new TransformExclusions(EmberClassLoader.EXCLUDE_PACKAGES);
 
   private final ClassLoader parent;
-  private final DynamicClassLoader dynamic;
+  private final ResourceIndex index;
   private final EmberTransformer transformer;
 
-  private Function<URLConnection, Manifest> manifestLocator;
-  private Function<URLConnection, CodeSource> sourceLocator;
+  private ClassDataCache classDataCache;
+  private ResourceRoot baked;
+  private TransformDependencies bakedDependencies;
+  private Function<Path, Manifest> manifestLocator;
   private Predicate<String> transformationFilter;
+  private boolean trustedJars;
 
   /* package */ EmberClassLoader(final @NotNull EmberTransformer transformer) {
-    super(new DynamicClassLoader(new URL[0]));
+    super(new DummyClassLoader());
 
     this.parent = EmberClassLoader.class.getClassLoader();
-    this.dynamic = (DynamicClassLoader) this.getParent();
+    this.index = new ResourceIndex();
 
     this.transformer = transformer;
 
-    this.manifestLocator = connection -> this.locateManifest(connection).orElse(null);
-    this.sourceLocator = connection -> this.locateSource(connection).orElse(null);
-    this.transformationFilter = name -> EmberClassLoader.EXCLUDE_PACKAGES.stream().noneMatch(name::startsWith);
+    this.manifestLocator = path -> null;
+    this.transformationFilter = name -> true;
+  }
+
+  /**
+   * Sets whether the jars added as transformation paths are trusted.
+   *
+   * <p>Signatures of trusted jars are not verified when their entries are
+   * read. This only applies to transformation paths added afterwards.</p>
+   *
+   * @param trustedJars whether jars are trusted
+   * @since 1.1.0
+   */
+  public void trustedJars(final boolean trustedJars) {
+    this.trustedJars = trustedJars;
+  }
+
+  /**
+   * Sets the maximum size of the cache of class bytes read for mixin, in
+   * bytes, or {@code 0} to disable it.
+   *
+   * @param maximumSize the maximum size of the cache in bytes
+   * @since 1.1.0
+   */
+  public void classDataCache(final long maximumSize) {
+    this.classDataCache = maximumSize > 0 ? new ClassDataCache(maximumSize) : null;
+  }
+
+  /**
+   * Returns the cache of class bytes read for mixin, if it is enabled.
+   *
+   * @return the class data cache
+   * @since 1.1.0
+   */
+  public @Nullable ClassDataCache classDataCache() {
+    return this.classDataCache;
   }
 
   /**
@@ -110,8 +144,8 @@ public final class EmberClassLoader extends ClassLoader {
    */
   public void addTransformationPath(final @NotNull Path path) {
     try {
-      this.dynamic.addURL(path.toUri().toURL());
-    } catch(final MalformedURLException exception) {
+      this.index.add(path, !this.trustedJars);
+    } catch(final IOException exception) {
       Logger.error(exception, "Failed to resolve transformation path: {}", path);
     }
   }
@@ -119,12 +153,222 @@ public final class EmberClassLoader extends ClassLoader {
   /**
    * Add the manifest locator.
    *
+   * <p>The locator is applied once for each transformation path, with a
+   * connection to the root of the path. If it does not provide a manifest
+   * the manifest in the jar is used.</p>
+   *
    * @param manifestLocator the manifest locator
    * @since 1.0.0
+   * @deprecated use {@link #addPathManifestLocator(Function)} instead
    */
+  @Deprecated
   public void addManifestLocator(final @NotNull Function<URLConnection, Optional<Manifest>> manifestLocator) {
     requireNonNull(manifestLocator, "manifestLocator");
-    this.manifestLocator = this.alternate(manifestLocator, this::locateManifest);
+    this.addPathManifestLocator(path -> {
+      try {
+        final URL url = Files.isDirectory(path) ? path.toUri().toURL() : new URL("jar:" + path.toUri() + "!/");
+        return manifestLocator.apply(url.openConnection());
+      } catch(final IOException exception) {
+        Logger.trace(exception, "Failed to open a connection to: {}", path);
+        return Optional.empty();
+      }
+    });
+  }
+
+  /**
+   * Add the manifest locator.
+   *
+   * <p>The locator is applied once for each transformation path, if it
+   * does not provide a manifest the manifest in the jar is used.</p>
+   *
+   * @param manifestLocator the manifest locator
+   * @since 1.1.0
+   */
+  public void addPathManifestLocator(final @NotNull Function<Path, Optional<Manifest>> manifestLocator) {
+    requireNonNull(manifestLocator, "manifestLocator");
+    this.manifestLocator = path -> manifestLocator.apply(path).orElse(null);
+  }
+
+  /**
+   * Uses the transformations baked into the jar at the given path, if it was
+   * baked from the same inputs.
+   *
+   * <p>Classes are then loaded with the baked class bytes where the baked jar
+   * contains them, and no transformers are applied.</p>
+   *
+   * <p>When dependencies are given, the fingerprint does not cover the
+   * sources. The dependencies of the baked jar are read into them, and the
+   * classes changed by a source that was added, changed or removed since the
+   * jar was baked are transformed as usual.</p>
+   *
+   * @param path the baked jar path
+   * @param fingerprint the fingerprint of the transformation inputs
+   * @param dependencies the transform dependencies, or {@code null}
+   * @return whether the baked transformations are used
+   * @since 1.1.0
+   */
+  public boolean useBakedTransformations(final @NotNull Path path, final byte@NotNull [] fingerprint, final @Nullable TransformDependencies dependencies) {
+    if(!Files.isRegularFile(path)) return false;
+
+    JarFile jar = null;
+    try {
+      jar = new JarFile(path.toFile(), false);
+      final Manifest manifest = jar.getManifest();
+      final String expected = TransformCache.hex(fingerprint);
+      if(manifest == null || !expected.equals(manifest.getMainAttributes().getValue(TransformBaker.FINGERPRINT))) {
+        Logger.info("Ignoring outdated baked transformations at: {}", path);
+        return false;
+      }
+
+      if(dependencies != null) {
+        final JarEntry entry = jar.getJarEntry(TransformBaker.DEPENDENCIES);
+        if(entry == null) {
+          Logger.info("Ignoring baked transformations without dependencies at: {}", path);
+          return false;
+        }
+
+        // Read into a new graph, so a failed read leaves the given one intact.
+        final TransformDependencies read = new TransformDependencies();
+        try(final InputStream stream = jar.getInputStream(entry)) {
+          read.read(stream);
+        }
+
+        dependencies.previous(read);
+      }
+
+      this.baked = new ResourceRoot(-1, path, jar);
+      this.bakedDependencies = dependencies;
+      jar = null;
+      return true;
+    } catch(final IOException exception) {
+      Logger.error(exception, "Failed to read the baked transformations at: {}", path);
+      return false;
+    } finally {
+      if(jar != null) {
+        try {
+          jar.close();
+        } catch(final IOException exception) {
+          Logger.debug(exception, "Failed to close the baked transformations at: {}", path);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if the baked transformations are used for every
+   * class, otherwise returns {@code false}.
+   *
+   * @return whether the baked transformations are used for every class
+   * @since 1.1.0
+   */
+  public boolean bakedTransformations() {
+    return this.baked != null && (this.bakedDependencies == null || !this.bakedDependencies.changed());
+  }
+
+  /**
+   * Restricts transformation to the transformation paths that contain a
+   * transformation target.
+   *
+   * <p>Classes from the other jars are defined without being passed through
+   * the transformers. Directories are always transformed.</p>
+   *
+   * @param targets the class names that may be transformed
+   * @param prefixes the class name prefixes that may be transformed
+   * @param mixinPackages the mixin packages, whose mixin targets may be transformed
+   * @return the number of transformation paths excluded from transformation
+   * @since 1.1.0
+   */
+  public int restrictTransformation(final @NotNull Collection<String> targets, final @NotNull Collection<String> prefixes, final @NotNull Collection<String> mixinPackages) {
+    final TransformEligibility eligibility = new TransformEligibility(this.index);
+    for(final String target : targets) eligibility.target(target);
+    for(final String prefix : prefixes) eligibility.prefix(prefix);
+    for(final String mixinPackage : mixinPackages) eligibility.mixinPackage(mixinPackage);
+    return eligibility.apply();
+  }
+
+  /**
+   * Returns the canonical names of the classes targeted by the mixins in the
+   * given mixin package.
+   *
+   * @param mixinPackage the mixin package
+   * @return the mixin targets
+   * @since 1.1.0
+   */
+  public @NotNull Set<String> mixinTargets(final @NotNull String mixinPackage) {
+    final Set<String> targets = new HashSet<>();
+    TransformEligibility.mixinTargets(this.index, mixinPackage, targets::add);
+    return targets;
+  }
+
+  /**
+   * Transforms the classes with the given canonical names ahead of them being
+   * loaded, on a pool of the given number of threads.
+   *
+   * <p>This blocks until every class has been transformed. The transformed
+   * class bytes are kept until the class is loaded, so loading it only has to
+   * define it.</p>
+   *
+   * @param names the canonical class names
+   * @param threads the number of threads
+   * @return the number of classes transformed
+   * @since 1.1.0
+   */
+  public int transformAhead(final @NotNull Collection<String> names, final int threads) {
+    final AtomicInteger count = new AtomicInteger();
+    final AtomicInteger thread = new AtomicInteger();
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+      final Thread worker = new Thread(runnable, "Ember Transform Worker #" + thread.incrementAndGet());
+      worker.setContextClassLoader(this);
+      worker.setDaemon(true);
+      return worker;
+    });
+
+    for(final String name : names) {
+      executor.execute(() -> {
+        final ReentrantLock lock = EmberClassLoader.lock(this.classLocks, name);
+        lock.lock();
+        try {
+          if(this.findLoadedClass(name) != null || this.transformed.containsKey(name)) return;
+
+          final ClassData data = this.transformData(name, TransformPhase.INITIALIZE);
+          if(data == null) return;
+
+          this.transformed.put(name, data);
+          count.incrementAndGet();
+        } catch(final Throwable throwable) {
+          // The class is transformed again when it is loaded, reporting the
+          // failure then.
+          Logger.debug(throwable, "Failed to transform class ahead of loading: {}", name);
+        } finally {
+          lock.unlock();
+        }
+      });
+    }
+
+    executor.shutdown();
+    try {
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch(final InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+
+    return count.get();
+  }
+
+  /**
+   * Adds a transformation exclusion rule.
+   *
+   * <p>Classes matching a rule are loaded by the parent class loader, without
+   * being transformed. The rules are merged into a single trie, so this is
+   * preferred over adding a transformation filter.</p>
+   *
+   * @param rule the exclusion rule
+   * @see TransformExclusions
+   * @since 1.1.0
+   */
+  public void addTransformationExclusion(final @NotNull String rule) {
+    requireNonNull(rule, "rule");
+    this.exclusions.add(rule);
   }
 
   /**
@@ -144,39 +388,64 @@ public final class EmberClassLoader extends ClassLoader {
     return this.findLoadedClass(canonicalName) != null;
   }
 
+  /* package */ @Nullable Class<?> loadedClass(final @NotNull String name) {
+    return this.findLoadedClass(name);
+  }
+
+  /* package */ void invalidate(final @NotNull String name) {
+    this.transformed.remove(name);
+  }
+
   @Override
   protected @NotNull Class<?> loadClass(final @NotNull String name, final boolean resolve) throws ClassNotFoundException {
-    synchronized(this.getClassLoadingLock(name)) {
-      final String canonicalName = name.replace('/', '.');
-
-      Class<?> target = this.findLoadedClass(canonicalName);
-      if(target == null) {
-        if(canonicalName.startsWith("java.")) {
-          Logger.trace("Loading parent class: {}", canonicalName);
-          target = this.parent.loadClass(canonicalName);
-          Logger.trace("Loaded parent class: {}", canonicalName);
-        } else {
-          Logger.trace("Attempting to load class: {}", canonicalName);
-          target = this.findClass(canonicalName, TransformPhase.INITIALIZE);
-          if(target == null) {
-            Logger.trace("Unable to locate class: {}", canonicalName);
-
-            Logger.trace("Attempting to load parent class: {}", canonicalName);
-            try {
-              target = this.parent.loadClass(canonicalName);
-              Logger.trace("Loaded parent class: {}", canonicalName);
-            } catch(final ClassNotFoundException exception) {
-              Logger.trace("Unable to locate parent class: {}", canonicalName);
-              throw exception;
-            }
-          } else {
-            Logger.trace("Loaded transformed class: {}", canonicalName);
-          }
-        }
+    // Replace only allocates when the name actually contains a slash.
+    final String canonicalName = name.replace('/', '.');
+
+    // Classes this loader has defined, or has already delegated to the parent
+    // are returned without taking the class loading lock.
+    Class<?> target = this.findLoadedClass(canonicalName);
+    if(target == null) target = this.delegated.get(canonicalName);
+    if(target == null) {
+      // Loading holds the lock across jar reads and transformation, so it is
+      // a lock rather than a monitor to avoid pinning virtual threads.
+      final ReentrantLock lock = EmberClassLoader.lock(this.classLocks, canonicalName);
+      lock.lock();
+      try {
+        target = this.findLoadedClass(canonicalName);
+        if(target == null) target = this.loadTarget(canonicalName);
+      } finally {
+        lock.unlock();
       }
+    }
+
+    if(resolve) this.resolveClass(target);
+    return target;
+  }
 
-      if(resolve) this.resolveClass(target);
+  private @NotNull Class<?> loadTarget(final @NotNull String name) throws ClassNotFoundException {
+    if(!name.startsWith("java.")) {
+      Logger.trace("Attempting to load class: {}", name);
+      final Class<?> target = this.findClass(name, TransformPhase.INITIALIZE);
+      if(target != null) {
+        Logger.trace("Loaded transformed class: {}", name);
+        return target;
+      }
+
+      Logger.trace("Unable to locate class: {}", name);
+    }
+
+    Logger.trace("Attempting to load parent class: {}", name);
+    try {
+      final Class<?> target = this.parent.loadClass(name);
+      Logger.trace("Loaded parent class: {}", name);
+
+      // The delegation is remembered, so later requests for this class skip
+      // the index lookup and the lock entirely.
+      this.delegated.putIfAbsent(name, target);
       return target;
+    } catch(final ClassNotFoundException exception) {
+      Logger.trace("Unable to locate parent class: {}", name);
+      throw exception;
     }
   }
 
@@ -202,8 +471,9 @@ public final class EmberClassLoader extends ClassLoader {
       return null;
     }
 
-    // Grab the class bytes.
-    final ClassData transformed = this.transformData(name, phase);
+    // Grab the class bytes, which may have been transformed ahead of time.
+    final ClassData ahead = phase == TransformPhase.INITIALIZE ? this.transformed.remove(name) : null;
+    final ClassData transformed = ahead != null ? ahead : this.transformData(name, phase);
     if(transformed == null) return null;
 
     // Check if the class has already been loaded by the transform.
@@ -221,8 +491,12 @@ public final class EmberClassLoader extends ClassLoader {
     }
 
     final byte[] bytes = transformed.data();
-    final ProtectionDomain domain = new ProtectionDomain(transformed.source(), null, this, null);
-    return this.defineClass(name, bytes, 0, bytes.length, domain);
+    final Class<?> target = this.defineClass(name, bytes, 0, bytes.length, transformed.domain());
+
+    // The class bytes are no longer needed once the class is defined.
+    final ClassDataCache cache = this.classDataCache;
+    if(cache != null) cache.remove(name);
+    return target;
   }
 
   /* package */ @Nullable ClassData transformData(final @NotNull String name, final @NotNull TransformPhase phase) {
@@ -230,87 +504,147 @@ public final class EmberClassLoader extends ClassLoader {
     if(data == null) return null;
 
     // Prevent transforming classes that are excluded from transformation.
-    if(!this.transformationFilter.test(name)) {
+    if(this.exclusions.excluded(name) || !this.transformationFilter.test(name)) {
       Logger.trace("Skipping transformer excluded class: {}", name);
       return null;
     }
 
+    // Use the baked class bytes rather than transforming the class, unless a
+    // source that changes it is different from when it was baked.
+    if(this.baked != null && (this.bakedDependencies == null || !this.bakedDependencies.invalidated(name))) {
+      final byte[] bytes = this.bakedData(name.replace('.', '/').concat(".class"));
+      return bytes != null ? new ClassData(bytes, data.metadata, false) : data;
+    }
+
+    // Skip the transformers for classes from jars without targets.
+    if(!data.transformable) return data;
+
     // Run the transformation.
     final byte[] bytes = this.transformer.transform(name, data.data(), phase);
-    return new ClassData(bytes, data.manifest(), data.source());
+    return new ClassData(bytes, data.metadata, true);
   }
 
   /* package */ @Nullable ClassData classData(final @NotNull String name, final @NotNull TransformPhase phase) {
     final String resourceName = name.replace('.', '/').concat(".class");
 
-    URL url = this.findResource(resourceName);
-    if(url == null) {
-      if(phase == TransformPhase.INITIALIZE) return null;
-      url = this.parent.getResource(resourceName);
-      if(url == null) return null;
+    final ResourceRoot root = this.index.find(resourceName);
+    if(root != null) {
+      try {
+        final byte[] bytes = this.readClass(root, name, resourceName, phase);
+        if(bytes == null) return null;
+
+        return new ClassData(bytes, root.metadata(this.manifestLocator, this), root.transformable());
+      } catch(final Exception exception) {
+        Logger.trace(exception, "Failed to resolve class data: {}", resourceName);
+        return null;
+      }
     }
 
-    try(final ResourceConnection connection = new ResourceConnection(url, this.manifestLocator, this.sourceLocator)) {
-      final int length = connection.contentLength();
-      final InputStream stream = connection.stream();
-      final byte[] bytes = new byte[length];
+    if(phase == TransformPhase.INITIALIZE) {
+      // Synthetic classes are only present in the baked jar.
+      if(this.baked == null || (this.bakedDependencies != null && this.bakedDependencies.changed())) return null;
 
-      // @formatter:off
-      int position = 0, remain = length, read;
-      while((read = stream.read(bytes, position, remain)) != -1 && remain > 0) {
-        position += read;
-        remain -= read;
-      }
-      // @formatter:on
+      final byte[] bytes = this.bakedData(resourceName);
+      return bytes != null ? new ClassData(bytes, this.baked.metadata(this.manifestLocator, this), false) : null;
+    }
+
+    final URL url = this.parent.getResource(resourceName);
+    if(url == null) return null;
 
-      final Manifest manifest = connection.manifest();
-      final CodeSource source = connection.source();
-      return new ClassData(bytes, manifest, source);
+    try(final InputStream stream = url.openStream()) {
+      return new ClassData(ResourceRoot.read(stream, -1), null, true);
     } catch(final Exception exception) {
       Logger.trace(exception, "Failed to resolve class data: {}", resourceName);
       return null;
     }
   }
+
+  private byte@Nullable [] readClass(final @NotNull ResourceRoot root, final @NotNull String name, final @NotNull String resourceName, final @NotNull TransformPhase phase) throws IOException {
+    final ClassDataCache cache = this.classDataCache;
+    if(cache == null) return root.read(resourceName);
+
+    // The classes read for mixin are usually loaded shortly after, so their
+    // bytes are kept until then.
+    final byte[] cached = cache.get(name, phase == TransformPhase.INITIALIZE);
+    if(cached != null) return cached;
+
+    final byte[] bytes = root.read(resourceName);
+    if(bytes != null && phase == TransformPhase.MIXIN && this.findLoadedClass(name) == null) cache.put(name, bytes);
+    return bytes;
+  }
+
+  private static @NotNull ReentrantLock lock(final @NotNull ConcurrentMap<String, ReentrantLock> locks, final @NotNull String name) {
+    final ReentrantLock lock = locks.get(name);
+    if(lock != null) return lock;
+
+    final ReentrantLock created = new ReentrantLock();
+    final ReentrantLock existing = locks.putIfAbsent(name, created);
+    return existing != null ? existing : created;
+  }
+
+  private byte@Nullable [] bakedData(final @NotNull String resourceName) {
+    try {
+      return this.baked.read(resourceName);
+    } catch(final IOException exception) {
+      Logger.trace(exception, "Failed to resolve baked class data: {}", resourceName);
+      return null;
+    }
+  }
   //</editor-fold>
 
+  /* package */ @NotNull ResourceIndex index() {
+    return this.index;
+  }
+
   //<editor-fold desc="Packages">
   /* package */ void findPackage(final @NotNull String name, final @Nullable Manifest manifest) {
-    final Package target = this.getPackage(name);
-    if(target == null) {
-      synchronized(this.lock) {
-        if(this.getPackage(name) != null) return;
-
-        final String path = name.replace('.', '/').concat("/");
-        // @formatter:off
-        String specTitle = null, specVersion = null, specVendor = null;
-        String implTitle = null, implVersion = null, implVendor = null;
-        // @formatter:on
-
-        if(manifest != null) {
-          final Attributes attributes = manifest.getAttributes(path);
-          if(attributes != null) {
-            specTitle = attributes.getValue(Attributes.Name.SPECIFICATION_TITLE);
-            specVersion = attributes.getValue(Attributes.Name.SPECIFICATION_VERSION);
-            specVendor = attributes.getValue(Attributes.Name.SPECIFICATION_VENDOR);
-            implTitle = attributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
-            implVersion = attributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
-            implVendor = attributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
-          }
-
-          final Attributes mainAttributes = manifest.getMainAttributes();
-          if(mainAttributes != null) {
-            if(specTitle == null) specTitle = mainAttributes.getValue(Attributes.Name.SPECIFICATION_TITLE);
-            if(specVersion == null) specVersion = mainAttributes.getValue(Attributes.Name.SPECIFICATION_VERSION);
-            if(specVendor == null) specVendor = mainAttributes.getValue(Attributes.Name.SPECIFICATION_VENDOR);
-            if(implTitle == null) implTitle = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
-            if(implVersion == null) implVersion = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
-            if(implVendor == null) implVendor = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
-          }
-        }
+    if(this.packages.containsKey(name)) return;
+
+    final ReentrantLock lock = EmberClassLoader.lock(this.packageLocks, name);
+    lock.lock();
+    try {
+      if(this.packages.containsKey(name)) return;
+      this.packages.put(name, this.createPackage(name, manifest));
+    } finally {
+      lock.unlock();
+    }
+  }
 
-        this.definePackage(name, specTitle, specVersion, specVendor, implTitle, implVersion, implVendor, null);
+  @SuppressWarnings("deprecation")
+  private @NotNull Package createPackage(final @NotNull String name, final @Nullable Manifest manifest) {
+    // A package may already be visible through the parent loaders.
+    final Package existing = this.getPackage(name);
+    if(existing != null) return existing;
+
+    final String path = name.replace('.', '/').concat("/");
+    // @formatter:off
+    String specTitle = null, specVersion = null, specVendor = null;
+    String implTitle = null, implVersion = null, implVendor = null;
+    // @formatter:on
+
+    if(manifest != null) {
+      final Attributes attributes = manifest.getAttributes(path);
+      if(attributes != null) {
+        specTitle = attributes.getValue(Attributes.Name.SPECIFICATION_TITLE);
+        specVersion = attributes.getValue(Attributes.Name.SPECIFICATION_VERSION);
+        specVendor = attributes.getValue(Attributes.Name.SPECIFICATION_VENDOR);
+        implTitle = attributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
+        implVersion = attributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
+        implVendor = attributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
+      }
+
+      final Attributes mainAttributes = manifest.getMainAttributes();
+      if(mainAttributes != null) {
+        if(specTitle == null) specTitle = mainAttributes.getValue(Attributes.Name.SPECIFICATION_TITLE);
+        if(specVersion == null) specVersion = mainAttributes.getValue(Attributes.Name.SPECIFICATION_VERSION);
+        if(specVendor == null) specVendor = mainAttributes.getValue(Attributes.Name.SPECIFICATION_VENDOR);
+        if(implTitle == null) implTitle = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
+        if(implVersion == null) implVersion = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
+        if(implVendor == null) implVendor = mainAttributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
       }
     }
+
+    return this.definePackage(name, specTitle, specVersion, specVendor, implTitle, implVersion, implVendor, null);
   }
   //</editor-fold>
 
@@ -319,7 +653,7 @@ public final class EmberClassLoader extends ClassLoader {
   public @Nullable URL getResource(final @NotNull String name) {
     requireNonNull(name, "name");
 
-    URL url = this.dynamic.getResource(name);
+    URL url = this.findResource(name);
     if(url == null) {
       url = this.parent.getResource(name);
     }
@@ -331,7 +665,7 @@ public final class EmberClassLoader extends ClassLoader {
   public @NotNull Enumeration<URL> getResources(final @NotNull String name) throws IOException {
     requireNonNull(name, "name");
 
-    Enumeration<URL> resources = this.dynamic.getResources(name);
+    Enumeration<URL> resources = this.findResources(name);
     if(!resources.hasMoreElements()) {
       resources = this.parent.getResources(name);
     }
@@ -342,55 +676,46 @@ public final class EmberClassLoader extends ClassLoader {
   @Override
   protected @Nullable URL findResource(final @NotNull String name) {
     requireNonNull(name, "name");
-    return this.dynamic.findResource(name);
+
+    final ResourceRoot root = this.index.find(name);
+    return root != null ? root.resource(name) : null;
   }
 
   @Override
   protected @NotNull Enumeration<URL> findResources(final @NotNull String name) throws IOException {
     requireNonNull(name, "name");
-    return this.dynamic.findResources(name);
-  }
 
-  @Override
-  public @Nullable InputStream getResourceAsStream(final @NotNull String name) {
-    requireNonNull(name, "name");
+    final List<ResourceRoot> roots = this.index.findAll(name);
+    if(roots.isEmpty()) return Collections.emptyEnumeration();
 
-    InputStream stream = this.dynamic.getResourceAsStream(name);
-    if(stream == null) {
-      stream = this.parent.getResourceAsStream(name);
+    final List<URL> urls = new ArrayList<>(roots.size());
+    for(final ResourceRoot root : roots) {
+      final URL url = root.resource(name);
+      if(url != null) urls.add(url);
     }
 
-    return stream;
+    return Collections.enumeration(urls);
   }
-  //</editor-fold>
 
-  //<editor-fold desc="Manifest">
-  private @NotNull Optional<Manifest> locateManifest(final @NotNull URLConnection connection) {
-    try {
-      if(connection instanceof JarURLConnection) {
-        return Optional.ofNullable(((JarURLConnection) connection).getManifest());
+  @Override
+  public @Nullable InputStream getResourceAsStream(final @NotNull String name) {
+    requireNonNull(name, "name");
+
+    InputStream stream = null;
+    final ResourceRoot root = this.index.find(name);
+    if(root != null) {
+      try {
+        stream = root.stream(name);
+      } catch(final IOException exception) {
+        // Ignore
       }
-    } catch(final IOException exception) {
-      // Ignore
     }
 
-    return Optional.empty();
-  }
-
-  private @NotNull Optional<CodeSource> locateSource(final @NotNull URLConnection connection) {
-    if(connection instanceof JarURLConnection) {
-      final URL url = ((JarURLConnection) connection).getJarFileURL();
-      return Optional.of(new CodeSource(url, (Certificate[]) null));
+    if(stream == null) {
+      stream = this.parent.getResourceAsStream(name);
     }
 
-    return Optional.empty();
-  }
-
-  private <I, O> @NotNull Function<I, O> alternate(final @Nullable Function<I, Optional<O>> first, final @Nullable Function<I, Optional<O>> second) {
-    if(second == null && first != null) return input -> first.apply(input).orElse(null);
-    if(first == null && second != null) return input -> second.apply(input).orElse(null);
-    if(first != null) return input -> first.apply(input).orElseGet(() -> second.apply(input).orElse(null));
-    return input -> null;
+    return stream;
   }
   //</editor-fold>
 
@@ -402,13 +727,13 @@ public final class EmberClassLoader extends ClassLoader {
    */
   public static final class ClassData {
     private final byte[] data;
-    private final Manifest manifest;
-    private final CodeSource source;
+    private final ResourceRoot.Metadata metadata;
+    private final boolean transformable;
 
-    private ClassData(final byte[] data, final @Nullable Manifest manifest, final @Nullable CodeSource source) {
+    private ClassData(final byte[] data, final ResourceRoot.@Nullable Metadata metadata, final boolean transformable) {
       this.data = data;
-      this.manifest = manifest;
-      this.source = source;
+      this.metadata = metadata;
+      this.transformable = transformable;
     }
 
     /**
@@ -428,7 +753,7 @@ public final class EmberClassLoader extends ClassLoader {
      * @since 1.1.0
      */
     public @Nullable Manifest manifest() {
-      return this.manifest;
+      return this.metadata != null ? this.metadata.manifest() : null;
     }
 
     /**
@@ -438,7 +763,12 @@ public final class EmberClassLoader extends ClassLoader {
      * @since 1.1.0
      */
     public @Nullable CodeSource source() {
-      return this.source;
+      return this.metadata != null ? this.metadata.source() : null;
+    }
+
+    /* package */ @Nullable ProtectionDomain domain() {
+      return this.metadata != null ? this.metadata.domain() : null;
     }
   }
+
 }
@@ -0,0 +1,273 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.UnmodifiableClassException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+import space.vectrix.ignite.agent.IgniteAgent;
+import space.vectrix.ignite.launch.transformer.MixinTransformerImpl;
+
+/**
+ * Represents the hot swapping of mixins, for development.
+ *
+ * <p>The watched class directories are checked for changed mixin classes,
+ * which are reloaded by mixin. The targets that have already been loaded are
+ * transformed again and redefined in place. Changes the JVM cannot apply to
+ * a loaded class, such as adding a field or method, and changes to classes
+ * that are not mixins, require a restart.</p>
+ *
+ * <p>Mod jars are not watched, as they are kept open from the launch and
+ * keep serving the classes they were opened with.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public final class EmberHotSwap {
+  private static final long SETTLE_TIME = 500L;
+  private static final String CLASS_EXTENSION = ".class";
+
+  private final EmberClassLoader loader;
+  private final EmberTransformer transformer;
+  private final List<String> mixinPackages = new ArrayList<>();
+  private final Map<Path, Map<String, Long>> checksums = new ConcurrentHashMap<>();
+
+  private WatchService watchService;
+
+  /**
+   * Creates a new hot swap for the mixins in the given mixin packages.
+   *
+   * @param loader the class loader
+   * @param transformer the transformer
+   * @param mixinPackages the mixin packages
+   * @since 1.1.0
+   */
+  public EmberHotSwap(final @NotNull EmberClassLoader loader, final @NotNull EmberTransformer transformer, final @NotNull Collection<String> mixinPackages) {
+    this.loader = loader;
+    this.transformer = transformer;
+    for(final String mixinPackage : mixinPackages) {
+      final String prefix = mixinPackage.replace('.', '/');
+      this.mixinPackages.add(prefix.endsWith("/") ? prefix : prefix.concat("/"));
+    }
+  }
+
+  /**
+   * Watches the class directories in the given mod paths for changed mixins,
+   * on a new thread.
+   *
+   * @param paths the mod jars and class directories
+   * @return the number of class directories watched
+   * @throws IOException if the paths could not be watched
+   * @since 1.1.0
+   */
+  public int watch(final @NotNull Collection<Path> paths) throws IOException {
+    this.watchService = FileSystems.getDefault().newWatchService();
+
+    for(final Path path : paths) {
+      final Path root = path.toAbsolutePath().normalize();
+      if(!Files.isDirectory(root)) {
+        Logger.debug("Skipped watching the mod jar for changed mixins: {}", root);
+        continue;
+      }
+
+      this.checksums.put(root, this.scan(root, null));
+      this.register(root);
+    }
+
+    if(this.checksums.isEmpty()) {
+      this.watchService.close();
+      return 0;
+    }
+
+    final Thread thread = new Thread(this::run, "Ember Hot Swap");
+    thread.setDaemon(true);
+    thread.start();
+    return this.checksums.size();
+  }
+
+  private void register(final @NotNull Path root) throws IOException {
+    // Registering a directory again is a no-op, so every directory is
+    // registered to include the ones created since.
+    try(final Stream<Path> directories = Files.walk(root)) {
+      for(final Path directory : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+        directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+      }
+    }
+  }
+
+  private void run() {
+    try {
+      while(true) {
+        WatchKey key = this.watchService.take();
+
+        // Wait for the writes to settle, so a jar or class is not read while
+        // it is being written.
+        final Set<Path> changed = new HashSet<>();
+        do {
+          final Path directory = (Path) key.watchable();
+          key.pollEvents().forEach(event -> {
+            final Path context = event.context() instanceof Path ? directory.resolve((Path) event.context()) : directory;
+            for(final Path root : this.checksums.keySet()) {
+              if(context.startsWith(root)) changed.add(root);
+            }
+          });
+
+          key.reset();
+        } while((key = this.watchService.poll(EmberHotSwap.SETTLE_TIME, TimeUnit.MILLISECONDS)) != null);
+
+        for(final Path root : changed) {
+          this.reload(root);
+        }
+      }
+    } catch(final InterruptedException | ClosedWatchServiceException exception) {
+      Logger.debug("Stopped watching for changed mixins");
+    }
+  }
+
+  private void reload(final @NotNull Path root) {
+    final Map<String, byte[]> changed = new HashMap<>();
+    try {
+      this.checksums.put(root, this.scan(root, changed));
+      if(Files.isDirectory(root)) this.register(root);
+    } catch(final IOException exception) {
+      Logger.error(exception, "Failed to read the changed classes in: {}", root);
+      return;
+    }
+
+    final List<String> restart = new ArrayList<>();
+    for(final Map.Entry<String, byte[]> entry : changed.entrySet()) {
+      final String className = entry.getKey().substring(0, entry.getKey().length() - EmberHotSwap.CLASS_EXTENSION.length()).replace('/', '.');
+      if(entry.getValue() == null || !this.mixin(entry.getKey())) {
+        restart.add(className);
+        continue;
+      }
+
+      this.swap(className, entry.getValue());
+    }
+
+    if(!restart.isEmpty()) {
+      Logger.warn("A restart is required to apply the added or changed classes that are not mixins: {}", String.join(", ", restart));
+    }
+  }
+
+  private void swap(final @NotNull String mixinName, final byte@NotNull [] bytes) {
+    final MixinTransformerImpl mixinTransformer = this.transformer.transformer(MixinTransformerImpl.class);
+    if(mixinTransformer == null) return;
+
+    final List<String> targets;
+    try {
+      targets = mixinTransformer.reload(mixinName, bytes);
+    } catch(final Throwable throwable) {
+      Logger.warn(throwable, "Failed to reload the mixin {}, a restart is required to apply it", mixinName);
+      return;
+    }
+
+    // The targets that have not been loaded yet are transformed with the
+    // reloaded mixin when they are, rather than from the bytes transformed
+    // ahead of time.
+    final List<ClassDefinition> definitions = new ArrayList<>();
+    for(final String target : targets) {
+      this.loader.invalidate(target);
+
+      final Class<?> loaded = this.loader.loadedClass(target);
+      if(loaded == null) continue;
+
+      final EmberClassLoader.ClassData data = this.loader.transformData(target, TransformPhase.INITIALIZE);
+      if(data != null) definitions.add(new ClassDefinition(loaded, data.data()));
+    }
+
+    try {
+      if(!definitions.isEmpty()) IgniteAgent.redefineClasses(definitions.toArray(new ClassDefinition[0]));
+      Logger.info("Reloaded the mixin {}, redefining {} loaded target(s)", mixinName, definitions.size());
+    } catch(final UnsupportedOperationException | LinkageError | ClassNotFoundException | UnmodifiableClassException exception) {
+      Logger.warn(exception, "Failed to redefine the targets of the mixin {}, a restart is required to apply it", mixinName);
+    }
+  }
+
+  private boolean mixin(final @NotNull String entryName) {
+    for(final String mixinPackage : this.mixinPackages) {
+      if(entryName.startsWith(mixinPackage)) return true;
+    }
+
+    return false;
+  }
+
+  private @NotNull Map<String, Long> scan(final @NotNull Path root, final @Nullable Map<String, byte[]> changed) throws IOException {
+    final Map<String, Long> previous = this.checksums.get(root);
+    final Map<String, Long> checksums = new HashMap<>();
+    if(!Files.isDirectory(root)) return checksums;
+
+    try(final Stream<Path> files = Files.walk(root)) {
+      for(final Path file : (Iterable<Path>) files::iterator) {
+        final String entryName = root.relativize(file).toString().replace(File.separatorChar, '/');
+        if(!entryName.endsWith(EmberHotSwap.CLASS_EXTENSION) || !Files.isRegularFile(file)) continue;
+
+        final byte[] bytes = Files.readAllBytes(file);
+        final CRC32 checksum = new CRC32();
+        checksum.update(bytes);
+        checksums.put(entryName, checksum.getValue());
+        EmberHotSwap.compare(previous, changed, entryName, checksum.getValue(), bytes);
+      }
+    }
+
+    return checksums;
+  }
+
+  private static void compare(final @Nullable Map<String, Long> previous, final @Nullable Map<String, byte[]> changed,
+                              final @NotNull String entryName, final long checksum, final byte@NotNull [] bytes) {
+    if(previous == null || changed == null) return;
+
+    final Long previousChecksum = previous.get(entryName);
+    if(previousChecksum == null) {
+      // Added classes are not known to mixin or the transformation index, so
+      // they need a restart.
+      changed.put(entryName, null);
+    } else if(previousChecksum != checksum) {
+      changed.put(entryName, bytes);
+    }
+  }
+}
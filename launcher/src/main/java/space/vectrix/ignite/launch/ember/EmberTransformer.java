@@ -24,17 +24,25 @@
  */
 package space.vectrix.ignite.launch.ember;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
@@ -50,27 +58,109 @@ import space.vectrix.ignite.util.IgniteConstants;
  */
 public final class EmberTransformer {
   private final Map<Class<? extends TransformerService>, TransformerService> transformers = new IdentityHashMap<>();
+  private final Map<TransformPhase, TransformerService[]> pipelines = new EnumMap<>(TransformPhase.class);
+
+  private final LongAdder examined = new LongAdder();
+  private final LongAdder unclaimed = new LongAdder();
+  private final TransformMetrics metrics;
+  private final ReentrantLock exclusive = new ReentrantLock();
+
+  private final TransformExclusions resourceExclusions = new TransformExclusions();
 
   private Predicate<String> resourceExclusionFilter = path -> true;
+  private TransformCache cache;
+  private TransformDependencies dependencies;
+  private ClassHierarchy hierarchy;
 
   /* package */ EmberTransformer() {
-    final ServiceLoader<TransformerService> serviceLoader = ServiceLoader.load(TransformerService.class, Ember.class.getClassLoader());
-    for(final TransformerService service : serviceLoader) {
+    this(ServiceLoader.load(TransformerService.class, Ember.class.getClassLoader()));
+  }
+
+  /* package */ EmberTransformer(final @NotNull Iterable<TransformerService> services) {
+    for(final TransformerService service : services) {
       this.transformers.put(service.getClass(), service);
     }
+
+    // The transformers are fixed once loaded, so each phase is only ordered
+    // once rather than for every class.
+    for(final TransformPhase phase : TransformPhase.values()) {
+      this.pipelines.put(phase, this.order(phase));
+    }
+
+    this.metrics = new TransformMetrics(this.pipelines);
   }
 
   /**
    * Adds a new exclusion filter.
    *
-   * <p>If the predicate results to {@code true}, transformation will not be
-   * applied.</p>
+   * <p>If the predicate results to {@code false}, transformation will not be
+   * applied. Filters are combined, so every filter must allow a class for it
+   * to be transformed.</p>
    *
    * @param predicate the filter
    * @since 1.0.0
    */
   public void addResourceExclusion(final @NotNull Predicate<String> predicate) {
-    this.resourceExclusionFilter = predicate;
+    this.resourceExclusionFilter = this.resourceExclusionFilter.and(predicate);
+  }
+
+  /**
+   * Adds a resource exclusion rule.
+   *
+   * <p>Classes matching a rule are not transformed. The rules are merged into
+   * a single trie, so this is preferred over adding a resource exclusion
+   * filter.</p>
+   *
+   * @param rule the exclusion rule
+   * @see TransformExclusions
+   * @since 1.1.0
+   */
+  public void addResourceExclusion(final @NotNull String rule) {
+    this.resourceExclusions.add(rule);
+  }
+
+  /**
+   * Sets the cache used to store transformed classes between launches.
+   *
+   * @param cache the cache, or {@code null} to disable caching
+   * @since 1.1.0
+   */
+  public void cache(final @Nullable TransformCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Returns the cache used to store transformed classes between launches.
+   *
+   * @return the cache, if present
+   * @since 1.1.0
+   */
+  public @Nullable TransformCache cache() {
+    return this.cache;
+  }
+
+  /**
+   * Sets the dependencies recording which classes each source changes.
+   *
+   * @param dependencies the dependencies, or {@code null} to not record them
+   * @since 1.1.0
+   */
+  public void dependencies(final @Nullable TransformDependencies dependencies) {
+    this.dependencies = dependencies;
+  }
+
+  /**
+   * Returns the dependencies recording which classes each source changes.
+   *
+   * @return the dependencies, if present
+   * @since 1.1.0
+   */
+  public @Nullable TransformDependencies dependencies() {
+    return this.dependencies;
+  }
+
+  /* package */ void hierarchy(final @NotNull ClassHierarchy hierarchy) {
+    this.hierarchy = hierarchy;
   }
 
   /**
@@ -85,6 +175,14 @@ public final class EmberTransformer {
     return transformer.cast(this.transformers.get(transformer));
   }
 
+  /* package */ void remove(final @NotNull Class<? extends TransformerService> transformer) {
+    if(this.transformers.remove(transformer) == null) return;
+
+    for(final TransformPhase phase : TransformPhase.values()) {
+      this.pipelines.put(phase, this.order(phase));
+    }
+  }
+
   /**
    * Returns an unmodifiable collection of transformers.
    *
@@ -95,63 +193,387 @@ public final class EmberTransformer {
     return Collections.unmodifiableCollection(this.transformers.values());
   }
 
+  /**
+   * Returns the number of classes passed to the transformers.
+   *
+   * @return the number of classes
+   * @since 1.1.0
+   */
+  public long examined() {
+    return this.examined.sum();
+  }
+
+  /**
+   * Returns the number of classes no transformer claimed, which were not
+   * parsed.
+   *
+   * @return the number of unclaimed classes
+   * @since 1.1.0
+   */
+  public long unclaimed() {
+    return this.unclaimed.sum();
+  }
+
+  /**
+   * Returns the metrics of each transformer.
+   *
+   * @return the transform metrics
+   * @since 1.1.0
+   */
+  public @NotNull TransformMetrics metrics() {
+    return this.metrics;
+  }
+
   /* package */ byte@NotNull [] transform(final @NotNull String className, final byte@NotNull [] input, final @NotNull TransformPhase phase) {
     final String internalName = className.replace('.', '/');
 
     // Check if the path is excluded from transformation.
-    if(!this.resourceExclusionFilter.test(internalName)) {
+    if(this.resourceExclusions.excluded(internalName) || !this.resourceExclusionFilter.test(internalName)) {
       Logger.debug("Skipping resource excluded class: {}", internalName);
       return input;
     }
 
-    ClassNode node = new ClassNode(IgniteConstants.ASM_VERSION);
+    // Collect the transformers that may transform the class, before parsing it.
+    this.examined.increment();
+    final List<TransformerService> transformers = this.claimed(this.pipelines.get(phase), className, input, phase);
+    if(transformers == null) {
+      this.unclaimed.increment();
+      return input;
+    }
+
+    // Check if the transformed class has been cached by a previous launch.
+    final TransformCache cache = phase == TransformPhase.INITIALIZE ? this.cache : null;
+    final String cacheKey = cache != null ? cache.key(internalName, phase, input) : null;
+    if(cache != null) {
+      final byte[] cached = cache.get(cacheKey, input);
+      if(cached != null) return cached;
+    }
 
     final Type type = Type.getObjectType(internalName);
-    if(input.length > 0) {
-      final ClassReader reader = new ClassReader(input);
-      reader.accept(node, 0);
-    } else {
+
+    // The class is held as bytes until a tree transformer needs a node, after
+    // which the node holds the latest state of the class.
+    byte[] bytes = input;
+    ClassNode node = null;
+    if(input.length == 0) {
+      node = new ClassNode(IgniteConstants.ASM_VERSION);
       node.name = type.getInternalName();
       node.version = MixinEnvironment.getCompatibilityLevel().getClassVersion();
       node.superName = "java/lang/Object";
     }
 
-    final List<TransformerService> transformers = this.order(phase);
+    // Skip the parts of the class that none of the transformers need. Skipped
+    // frames are recomputed when the class is written.
+    final int readerFlags = EmberTransformer.readerFlags(transformers);
+    TransformChange change = (readerFlags & ClassReader.SKIP_FRAMES) != 0 ? TransformChange.CODE : TransformChange.METADATA;
     boolean transformed = false;
-    {
-      for(final TransformerService service : transformers) {
+    boolean failed = false;
+    int index = 0;
+    while(index < transformers.size()) {
+      final TransformerService service = transformers.get(index);
+      if(service instanceof StreamingTransformerService) {
+        // Consecutive streaming transformers are fused into a single pass,
+        // which writes the class directly if nothing else follows.
+        int end = index + 1;
+        while(end < transformers.size() && transformers.get(end) instanceof StreamingTransformerService) end++;
+
+        final List<TransformerService> segment = transformers.subList(index, end);
+        final boolean last = end == transformers.size();
+        final TransformChange segmentChange = EmberTransformer.change(change, segment);
+        final boolean exclusive = EmberTransformer.exclusive(segment);
+        if(exclusive) this.enterExclusive(segment.get(0), phase);
+
+        final long start = System.nanoTime();
+        boolean segmentFailed = false;
+        boolean segmentModified = false;
         try {
-          // If the transformer should not transform the class, skip it.
-          if(!service.shouldTransform(type, node)) continue;
+          final ClassReader reader = node == null ? new ClassReader(bytes) : null;
+          if(last) {
+            // Writing from the reader copies its constant pool, and copies the
+            // methods no transformer visited without recomputing them.
+            final int flags = EmberTransformer.writerFlags(segmentChange);
+            final HierarchyClassWriter writer = reader != null ? new HierarchyClassWriter(this.hierarchy, reader, flags) : new HierarchyClassWriter(this.hierarchy, flags);
+            segmentModified = this.accept(type, segment, reader, readerFlags, node, phase, writer.recorder());
+            if(segmentModified) {
+              bytes = writer.toByteArray();
+              node = null;
+            }
+          } else {
+            final ClassNode target = new ClassNode(IgniteConstants.ASM_VERSION);
+            segmentModified = this.accept(type, segment, reader, readerFlags, node, phase, target);
+            node = target;
+          }
+
+          // A pass that changed nothing leaves the class as it was.
+          if(segmentModified) {
+            change = segmentChange;
+            transformed = true;
+          }
+        } catch(final Throwable throwable) {
+          Logger.error(throwable, "Failed to transform {} with {}", type.getClassName(), EmberTransformer.names(segment));
+          failed = true;
+          segmentFailed = true;
+        } finally {
+          if(exclusive) this.exclusive.unlock();
+        }
+
+        // The fused pass can't be split between its transformers, so its time
+        // is split evenly.
+        final long time = (System.nanoTime() - start) / segment.size();
+        for(final TransformerService segmentService : segment) {
+          final TransformMetrics.Stage stage = this.metrics.transformer(segmentService, phase);
+          stage.invoked(time, segmentModified);
+          if(segmentFailed) stage.failed();
+        }
+
+        index = end;
+        continue;
+      }
+
+      if(node == null) {
+        final long start = System.nanoTime();
+        node = new ClassNode(IgniteConstants.ASM_VERSION);
+        new ClassReader(bytes).accept(node, readerFlags);
+        this.metrics.parse(phase).invoked(System.nanoTime() - start, false);
+      }
+
+      // Only exclusive transformers enter the critical section, after the
+      // class has been parsed.
+      final TransformMetrics.Stage stage = this.metrics.transformer(service, phase);
+      if(service.exclusive()) this.enterExclusive(service, phase);
+
+      final long start = System.nanoTime();
+      boolean changed = false;
+      try {
+        // If the transformer should not transform the class, skip it.
+        if(service.shouldTransform(type, node)) {
           // Attempt to transform the class.
           final ClassNode transformedNode = service.transform(type, node, phase);
           if(transformedNode != null) {
             node = transformedNode;
+            change = EmberTransformer.max(change, service.change());
             transformed = true;
+            changed = true;
           }
-        } catch(final Throwable throwable) {
-          Logger.error(throwable, "Failed to transform {} with {}", type.getClassName(), service.getClass().getName());
         }
+      } catch(final Throwable throwable) {
+        Logger.error(throwable, "Failed to transform {} with {}", type.getClassName(), service.getClass().getName());
+        failed = true;
+        stage.failed();
+      } finally {
+        if(service.exclusive()) this.exclusive.unlock();
       }
+
+      stage.invoked(System.nanoTime() - start, changed);
+
+      index++;
     }
 
     // If no transformations were applied, return the original input.
-    if(!transformed) return input;
+    if(!transformed) {
+      this.bytes(transformers, phase, input.length, input.length);
+      if(cache != null && !failed) cache.put(cacheKey, null);
+      return input;
+    }
+
+    final byte[] output;
+    if(node != null) {
+      final long start = System.nanoTime();
+      final HierarchyClassWriter writer = new HierarchyClassWriter(this.hierarchy, EmberTransformer.writerFlags(change));
+      node.accept(writer.recorder());
+      output = writer.toByteArray();
+      this.metrics.write(phase).invoked(System.nanoTime() - start, false);
+    } else {
+      output = bytes;
+    }
+
+    this.bytes(transformers, phase, input.length, output.length);
+
+    // Don't cache the output of a failed transformation, so it is attempted
+    // again on the next launch.
+    if(cache != null && !failed) cache.put(cacheKey, output);
+    return output;
+  }
+
+  private boolean accept(final @NotNull Type type,
+                         final @NotNull List<TransformerService> segment,
+                         final @Nullable ClassReader reader,
+                         final int readerFlags,
+                         final @Nullable ClassNode node,
+                         final @NotNull TransformPhase phase,
+                         final @NotNull ClassVisitor sink) {
+    final StreamingTransformerService.Modification modification = new StreamingTransformerService.Modification();
+    ClassVisitor visitor = sink;
+    for(int index = segment.size() - 1; index >= 0; index--) {
+      visitor = ((StreamingTransformerService) segment.get(index)).visitor(type, visitor, phase, modification);
+    }
+
+    if(node != null) {
+      node.accept(visitor);
+    } else if(reader != null) {
+      reader.accept(visitor, readerFlags);
+    }
+
+    return modification.marked();
+  }
+
+  private static int readerFlags(final @NotNull List<TransformerService> transformers) {
+    // Debug information is always written, so it is never skipped.
+    int skip = ClassReader.SKIP_FRAMES;
+    int expand = 0;
+    for(final TransformerService service : transformers) {
+      final int flags = service.readerFlags();
+      skip &= flags;
+      expand |= flags & ClassReader.EXPAND_FRAMES;
+    }
+
+    return (skip & ClassReader.SKIP_FRAMES) != 0 ? skip : expand;
+  }
+
+  private static @NotNull TransformChange change(final @NotNull TransformChange change, final @NotNull List<TransformerService> transformers) {
+    TransformChange result = change;
+    for(final TransformerService service : transformers) {
+      result = EmberTransformer.max(result, service.change());
+    }
+
+    return result;
+  }
+
+  private static @NotNull TransformChange max(final @NotNull TransformChange first, final @NotNull TransformChange second) {
+    return first.compareTo(second) >= 0 ? first : second;
+  }
+
+  private static int writerFlags(final @NotNull TransformChange change) {
+    switch(change) {
+      case METADATA: {
+        return 0;
+      }
+      case MEMBERS: {
+        return ClassWriter.COMPUTE_MAXS;
+      }
+      default: {
+        return ClassWriter.COMPUTE_FRAMES;
+      }
+    }
+  }
+
+  private void enterExclusive(final @NotNull TransformerService service, final @NotNull TransformPhase phase) {
+    // The lock is only timed when it is contended.
+    if(this.exclusive.tryLock()) return;
+
+    final long start = System.nanoTime();
+    this.exclusive.lock();
+    this.metrics.transformer(service, phase).waited(System.nanoTime() - start);
+  }
 
-    final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
-    node.accept(writer);
+  private static boolean exclusive(final @NotNull List<TransformerService> transformers) {
+    for(final TransformerService service : transformers) {
+      if(service.exclusive()) return true;
+    }
 
-    return writer.toByteArray();
+    return false;
+  }
+
+  private void bytes(final @NotNull List<TransformerService> transformers, final @NotNull TransformPhase phase, final int input, final int output) {
+    for(final TransformerService service : transformers) {
+      this.metrics.transformer(service, phase).bytes(input, output);
+    }
   }
 
-  private List<TransformerService> order(final @NotNull TransformPhase phase) {
-    return this.transformers.values().stream()
-      .filter(value -> value.priority(phase) != -1) // Filter out transformers that do not apply to the given phase.
-      .sorted((first, second) -> {
-        final int firstPriority = first.priority(phase);
-        final int secondPriority = second.priority(phase);
-        return Integer.compare(firstPriority, secondPriority);
-      })
-      .collect(Collectors.toList());
+  private @Nullable List<TransformerService> claimed(final TransformerService@NotNull [] transformers, final @NotNull String className, final byte@NotNull [] input, final @NotNull TransformPhase phase) {
+    List<TransformerService> claimed = null;
+    for(final TransformerService service : transformers) {
+      final TransformMetrics.Stage stage = this.metrics.transformer(service, phase);
+      boolean claims;
+      try {
+        claims = service.claims(className, input);
+      } catch(final Throwable throwable) {
+        Logger.error(throwable, "Failed to check if {} claims {}", service.getClass().getName(), className);
+        stage.failed();
+        claims = true;
+      }
+
+      stage.offered(claims);
+
+      if(!claims) continue;
+      if(claimed == null) claimed = new ArrayList<>(transformers.length);
+      claimed.add(service);
+    }
+
+    return claimed;
   }
+
+  private static @NotNull String names(final @NotNull List<TransformerService> transformers) {
+    final StringJoiner joiner = new StringJoiner(", ");
+    for(final TransformerService service : transformers) {
+      joiner.add(service.getClass().getName());
+    }
+
+    return joiner.toString();
+  }
+
+  private TransformerService@NotNull [] order(final @NotNull TransformPhase phase) {
+    // Filter out transformers that do not apply to the given phase.
+    final List<TransformerService> candidates = new ArrayList<>();
+    for(final TransformerService service : this.transformers.values()) {
+      if(service.priority(phase) != -1) candidates.add(service);
+    }
+
+    candidates.sort(Comparator.comparingInt(service -> service.priority(phase)));
+
+    // Collect the ordering constraints between the candidates.
+    final Map<TransformerService, Set<TransformerService>> successors = new IdentityHashMap<>();
+    final Map<TransformerService, Integer> predecessors = new IdentityHashMap<>();
+    for(final TransformerService service : candidates) {
+      successors.put(service, new LinkedHashSet<>());
+      predecessors.put(service, 0);
+    }
+
+    for(final TransformerService service : candidates) {
+      for(final Class<? extends TransformerService> type : service.before()) {
+        this.constrain(successors, predecessors, service, this.transformers.get(type));
+      }
+
+      for(final Class<? extends TransformerService> type : service.after()) {
+        this.constrain(successors, predecessors, this.transformers.get(type), service);
+      }
+    }
+
+    // Take the highest priority transformer whose constraints are satisfied,
+    // until every transformer is ordered.
+    final List<TransformerService> remaining = new ArrayList<>(candidates);
+    final List<TransformerService> result = new ArrayList<>(candidates.size());
+    while(!remaining.isEmpty()) {
+      TransformerService next = null;
+      for(final TransformerService service : remaining) {
+        if(predecessors.get(service) == 0) {
+          next = service;
+          break;
+        }
+      }
+
+      if(next == null) {
+        Logger.error("Found cyclic ordering constraints between the transformers for the {} phase, falling back to priority order", phase);
+        return candidates.toArray(new TransformerService[0]);
+      }
+
+      remaining.remove(next);
+      result.add(next);
+      for(final TransformerService successor : successors.get(next)) {
+        predecessors.merge(successor, -1, Integer::sum);
+      }
+    }
+
+    return result.toArray(new TransformerService[0]);
+  }
+
+  private void constrain(final @NotNull Map<TransformerService, Set<TransformerService>> successors,
+                         final @NotNull Map<TransformerService, Integer> predecessors,
+                         final @Nullable TransformerService first,
+                         final @Nullable TransformerService second) {
+    if(first == null || second == null || first == second) return;
+    if(!successors.containsKey(first) || !successors.containsKey(second)) return;
+    if(successors.get(first).add(second)) predecessors.merge(second, 1, Integer::sum);
+  }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import space.vectrix.ignite.util.IgniteConstants;
+
+/**
+ * Represents a {@link ClassWriter} that computes common super classes from
+ * the {@link ClassHierarchy}, rather than by loading classes.
+ *
+ * <p>The class loading implementation is only used for classes that are not
+ * known to the hierarchy.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+/* package */ final class HierarchyClassWriter extends ClassWriter {
+  private final ClassHierarchy hierarchy;
+
+  /* package */ HierarchyClassWriter(final @Nullable ClassHierarchy hierarchy, final int flags) {
+    super(flags);
+    this.hierarchy = hierarchy;
+  }
+
+  /* package */ HierarchyClassWriter(final @Nullable ClassHierarchy hierarchy, final @NotNull ClassReader reader, final int flags) {
+    super(reader, flags);
+    this.hierarchy = hierarchy;
+  }
+
+  /* package */ @NotNull ClassVisitor recorder() {
+    if(this.hierarchy == null) return this;
+
+    return new ClassVisitor(IgniteConstants.ASM_VERSION, this) {
+      @Override
+      public void visit(final int version, final int access, final @NotNull String name, final @Nullable String signature, final @Nullable String superName, final String@Nullable [] interfaces) {
+        // Record the transformed header, before any frames are computed.
+        HierarchyClassWriter.this.hierarchy.update(name, access, superName, interfaces);
+        super.visit(version, access, name, signature, superName, interfaces);
+      }
+    };
+  }
+
+  @Override
+  protected @NotNull String getCommonSuperClass(final @NotNull String type1, final @NotNull String type2) {
+    if(this.hierarchy != null) {
+      final String result = this.hierarchy.commonSuperClass(type1, type2);
+      if(result != null) return result;
+    }
+
+    return super.getCommonSuperClass(type1, type2);
+  }
+}
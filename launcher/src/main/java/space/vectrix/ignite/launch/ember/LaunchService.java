@@ -51,15 +51,49 @@ public interface LaunchService {
    */
   void configure(final @NotNull EmberClassLoader classLoader, final @NotNull EmberTransformer transformer);
 
+  /**
+   * Returns {@code true} if mixins may be applied, otherwise returns
+   * {@code false} to launch without bootstrapping mixin.
+   *
+   * @return whether mixin is needed
+   * @since 1.1.0
+   */
+  default boolean mixins() {
+    return true;
+  }
+
   /**
    * Executed after mixin has been initialized, but before the game has
    * launched.
    *
+   * <p>If mixin is not needed, this is executed without mixin being
+   * initialized.</p>
+   *
+   * <p>This is not executed when every class is loaded from the baked
+   * transformations.</p>
+   *
    * @param transformer the transformer
    * @since 1.0.0
    */
   void prepare(final @NotNull EmberTransformer transformer);
 
+  /**
+   * Executed after the launch has been prepared, just before the game is
+   * launched.
+   *
+   * <p>If mixin is needed, this is executed once mixin has completed its
+   * bootstrap, otherwise once the transformers have been initialized.</p>
+   *
+   * <p>This is not executed when every class is loaded from the baked
+   * transformations.</p>
+   *
+   * @param classLoader the class loader
+   * @param transformer the transformer
+   * @since 1.1.0
+   */
+  default void ready(final @NotNull EmberClassLoader classLoader, final @NotNull EmberTransformer transformer) {
+  }
+
   /**
    * Launches the game.
    *
@@ -0,0 +1,220 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents an index of the entries in the transformation paths.
+ *
+ * <p>Every jar is indexed once when it is added, so looking up the owner of
+ * an entry, or determining that no transformation path contains it, does not
+ * need to search each jar. Directories are not indexed, as their contents may
+ * change while the game is running.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+/* package */ final class ResourceIndex {
+  private static final String VERSIONS_PREFIX = "META-INF/versions/";
+  private static final int JAVA_VERSION = ResourceIndex.javaVersion();
+
+  private final List<ResourceRoot> roots = new CopyOnWriteArrayList<>();
+  private final List<ResourceRoot> directories = new CopyOnWriteArrayList<>();
+  private final Map<String, ResourceRoot> entries = new ConcurrentHashMap<>();
+  private final Map<String, List<ResourceRoot>> duplicates = new ConcurrentHashMap<>();
+
+  /* package */ synchronized @NotNull ResourceRoot add(final @NotNull Path path, final boolean verify) throws IOException {
+    if(Files.isDirectory(path)) {
+      final ResourceRoot root = new ResourceRoot(this.roots.size(), path, null);
+      this.directories.add(root);
+      this.roots.add(root);
+      return root;
+    }
+
+    // The jar is kept open, so entries can be read without reopening it.
+    final JarFile jar = new JarFile(path.toFile(), verify);
+    final ResourceRoot root;
+    try {
+      root = new ResourceRoot(this.roots.size(), path, jar);
+
+      final boolean multiRelease = ResourceIndex.multiRelease(jar.getManifest());
+      final Enumeration<JarEntry> jarEntries = jar.entries();
+      while(jarEntries.hasMoreElements()) {
+        final String name = jarEntries.nextElement().getName();
+        this.index(name, root);
+
+        // Versioned entries are also indexed under their unversioned name, if
+        // they apply to the running Java version.
+        if(multiRelease && name.startsWith(ResourceIndex.VERSIONS_PREFIX)) {
+          final int separator = name.indexOf('/', ResourceIndex.VERSIONS_PREFIX.length());
+          final int version = ResourceIndex.version(name, separator);
+          if(version < 9 || version > ResourceIndex.JAVA_VERSION || separator == name.length() - 1) continue;
+
+          final String unversioned = name.substring(separator + 1);
+          if(root.version(unversioned, name, version)) this.index(unversioned, root);
+        }
+      }
+    } catch(final IOException exception) {
+      jar.close();
+      throw exception;
+    }
+
+    this.roots.add(root);
+    return root;
+  }
+
+  /* package */ @NotNull List<ResourceRoot> roots() {
+    return Collections.unmodifiableList(this.roots);
+  }
+
+  /* package */ @Nullable ResourceRoot find(final @NotNull String name) {
+    ResourceRoot root = this.entries.get(name);
+    if(root == null && !name.endsWith("/") && !name.endsWith(".class")) {
+      // Jars may only contain the directory entry with a trailing slash.
+      root = this.entries.get(name.concat("/"));
+    }
+
+    if(this.directories.isEmpty()) return root;
+
+    // Directories are only checked when they precede the indexed root.
+    for(final ResourceRoot directory : this.directories) {
+      if(root != null && directory.index() > root.index()) break;
+      if(directory.contains(name)) return directory;
+    }
+
+    return root;
+  }
+
+  /* package */ @NotNull List<ResourceRoot> findAll(final @NotNull String name) {
+    final List<ResourceRoot> result = new ArrayList<>();
+
+    String entryName = name;
+    if(!this.entries.containsKey(entryName) && !name.endsWith("/") && !name.endsWith(".class")) {
+      // Jars may only contain the directory entry with a trailing slash.
+      entryName = name.concat("/");
+    }
+
+    final List<ResourceRoot> duplicateRoots = this.duplicates.get(entryName);
+    if(duplicateRoots != null) {
+      result.addAll(duplicateRoots);
+    } else {
+      final ResourceRoot root = this.entries.get(entryName);
+      if(root != null) result.add(root);
+    }
+
+    if(!this.directories.isEmpty()) {
+      for(final ResourceRoot directory : this.directories) {
+        if(directory.contains(name)) result.add(directory);
+      }
+
+      result.sort(Comparator.comparingInt(ResourceRoot::index));
+    }
+
+    return result;
+  }
+
+  /* package */ void forEach(final @NotNull String prefix, final @NotNull BiConsumer<String, ResourceRoot> consumer) {
+    for(final Map.Entry<String, ResourceRoot> entry : this.entries.entrySet()) {
+      final String name = entry.getKey();
+      if(!name.startsWith(prefix)) continue;
+
+      final List<ResourceRoot> duplicateRoots = this.duplicates.get(name);
+      if(duplicateRoots != null) {
+        for(final ResourceRoot root : duplicateRoots) consumer.accept(name, root);
+      } else {
+        consumer.accept(name, entry.getValue());
+      }
+    }
+
+    for(final ResourceRoot directory : this.directories) {
+      final Path start = directory.path().resolve(prefix);
+      if(!Files.isDirectory(start)) continue;
+
+      try(final Stream<Path> paths = Files.walk(start)) {
+        paths.filter(Files::isRegularFile).forEach(path -> {
+          final String name = directory.path().relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+          consumer.accept(name, directory);
+        });
+      } catch(final IOException exception) {
+        // Ignore
+      }
+    }
+  }
+
+  private void index(final @NotNull String name, final @NotNull ResourceRoot root) {
+    final ResourceRoot previous = this.entries.putIfAbsent(name, root);
+    if(previous == null || previous == root) return;
+
+    // Lists are replaced rather than modified, as they may be read concurrently.
+    this.duplicates.compute(name, (key, value) -> {
+      final List<ResourceRoot> result = new ArrayList<>(value != null ? value : Collections.singletonList(previous));
+      result.add(root);
+      return result;
+    });
+  }
+
+  private static int version(final @NotNull String name, final int separator) {
+    if(separator < 0) return -1;
+
+    try {
+      return Integer.parseInt(name.substring(ResourceIndex.VERSIONS_PREFIX.length(), separator));
+    } catch(final NumberFormatException exception) {
+      return -1;
+    }
+  }
+
+  private static boolean multiRelease(final @Nullable Manifest manifest) {
+    if(manifest == null || ResourceIndex.JAVA_VERSION < 9) return false;
+    return Boolean.parseBoolean(manifest.getMainAttributes().getValue(new Attributes.Name("Multi-Release")));
+  }
+
+  private static int javaVersion() {
+    final String version = System.getProperty("java.specification.version", "1.8");
+    try {
+      return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    } catch(final NumberFormatException exception) {
+      return 8;
+    }
+  }
+}
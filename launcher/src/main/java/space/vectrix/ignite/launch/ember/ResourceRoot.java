@@ -0,0 +1,248 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a transformation path, which is either a jar or a directory.
+ *
+ * <p>Jars are opened once and shared, so reading an entry only needs to
+ * inflate it.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+/* package */ final class ResourceRoot {
+  private static final int BUFFER_SIZE = 8192;
+
+  private final int index;
+  private final Path path;
+  private final URL url;
+  private final JarFile jar;
+  private final Map<String, String> versions = new HashMap<>();
+  private final Map<String, Integer> versionNumbers = new HashMap<>();
+
+  private final ReentrantLock metadataLock = new ReentrantLock();
+  private volatile Metadata metadata;
+  private volatile boolean transformable = true;
+
+  /* package */ ResourceRoot(final int index, final @NotNull Path path, final @Nullable JarFile jar) throws MalformedURLException {
+    this.index = index;
+    this.path = path;
+    this.url = path.toUri().toURL();
+    this.jar = jar;
+  }
+
+  /* package */ int index() {
+    return this.index;
+  }
+
+  /* package */ @NotNull Path path() {
+    return this.path;
+  }
+
+  /* package */ @NotNull URL url() {
+    return this.url;
+  }
+
+  /* package */ boolean directory() {
+    return this.jar == null;
+  }
+
+  /* package */ boolean transformable() {
+    return this.transformable;
+  }
+
+  /* package */ void transformable(final boolean transformable) {
+    this.transformable = transformable;
+  }
+
+  /* package */ boolean version(final @NotNull String name, final @NotNull String entryName, final int version) {
+    final Integer previous = this.versionNumbers.get(name);
+    if(previous != null && previous >= version) return false;
+
+    this.versionNumbers.put(name, version);
+    this.versions.put(name, entryName);
+    return true;
+  }
+
+  /* package */ @NotNull String entryName(final @NotNull String name) {
+    if(this.versions.isEmpty()) return name;
+    return this.versions.getOrDefault(name, name);
+  }
+
+  /* package */ boolean contains(final @NotNull String name) {
+    return this.jar == null && Files.exists(this.path.resolve(name));
+  }
+
+  /* package */ @Nullable URL resource(final @NotNull String name) {
+    try {
+      if(this.jar == null) {
+        return this.path.resolve(name).toUri().toURL();
+      }
+
+      return new URL("jar:" + this.url + "!/" + this.entryName(name));
+    } catch(final MalformedURLException exception) {
+      return null;
+    }
+  }
+
+  /* package */ @Nullable InputStream stream(final @NotNull String name) throws IOException {
+    if(this.jar == null) {
+      final Path target = this.path.resolve(name);
+      return Files.isRegularFile(target) ? Files.newInputStream(target) : null;
+    }
+
+    final JarEntry entry = this.jar.getJarEntry(this.entryName(name));
+    return entry != null ? this.jar.getInputStream(entry) : null;
+  }
+
+  /* package */ byte@Nullable [] read(final @NotNull String name) throws IOException {
+    if(this.jar == null) {
+      final Path target = this.path.resolve(name);
+      return Files.isRegularFile(target) ? Files.readAllBytes(target) : null;
+    }
+
+    final JarEntry entry = this.jar.getJarEntry(this.entryName(name));
+    if(entry == null) return null;
+
+    try(final InputStream stream = this.jar.getInputStream(entry)) {
+      return ResourceRoot.read(stream, entry.getSize());
+    }
+  }
+
+  /* package */ @NotNull Metadata metadata(final @NotNull Function<Path, Manifest> manifestLocator, final @NotNull ClassLoader loader) {
+    Metadata metadata = this.metadata;
+    if(metadata != null) return metadata;
+
+    // A lock is used rather than a monitor, so a virtual thread reading the
+    // manifest does not pin its carrier thread.
+    this.metadataLock.lock();
+    try {
+      metadata = this.metadata;
+      if(metadata != null) return metadata;
+
+      // The manifest, code source and protection domain are resolved once and
+      // shared by every class defined from this root.
+      Manifest manifest = manifestLocator.apply(this.path);
+      if(manifest == null && this.jar != null) {
+        try {
+          manifest = this.jar.getManifest();
+        } catch(final IOException exception) {
+          // Ignore
+        }
+      }
+
+      final CodeSource source = new CodeSource(this.url, (Certificate[]) null);
+      final ProtectionDomain domain = new ProtectionDomain(source, null, loader, null);
+      return this.metadata = new Metadata(manifest, source, domain);
+    } finally {
+      this.metadataLock.unlock();
+    }
+  }
+
+  /**
+   * Reads the given {@link InputStream} into an exactly sized array, using the
+   * given size if it is known.
+   *
+   * @param stream the input stream
+   * @param size the size, or -1 if unknown
+   * @return the bytes
+   * @throws IOException if the stream could not be read
+   */
+  /* package */ static byte@NotNull [] read(final @NotNull InputStream stream, final long size) throws IOException {
+    if(size >= 0 && size < Integer.MAX_VALUE) {
+      final byte[] bytes = new byte[(int) size];
+
+      int position = 0;
+      while(position < bytes.length) {
+        final int read = stream.read(bytes, position, bytes.length - position);
+        if(read == -1) throw new EOFException("Unexpected end of entry after " + position + " of " + size + " bytes");
+        position += read;
+      }
+
+      return bytes;
+    }
+
+    byte[] buffer = new byte[ResourceRoot.BUFFER_SIZE];
+    int position = 0;
+    int read;
+    while((read = stream.read(buffer, position, buffer.length - position)) != -1) {
+      position += read;
+      if(position == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+
+    return Arrays.copyOf(buffer, position);
+  }
+
+  @Override
+  public @NotNull String toString() {
+    return "ResourceRoot{path=" + this.path + "}";
+  }
+
+  /* package */ static final class Metadata {
+    private final Manifest manifest;
+    private final CodeSource source;
+    private final ProtectionDomain domain;
+
+    /* package */ Metadata(final @Nullable Manifest manifest, final @NotNull CodeSource source, final @NotNull ProtectionDomain domain) {
+      this.manifest = manifest;
+      this.source = source;
+      this.domain = domain;
+    }
+
+    /* package */ @Nullable Manifest manifest() {
+      return this.manifest;
+    }
+
+    /* package */ @NotNull CodeSource source() {
+      return this.source;
+    }
+
+    /* package */ @NotNull ProtectionDomain domain() {
+      return this.domain;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import space.vectrix.ignite.util.IgniteConstants;
+
+/**
+ * Represents a transformer service that transforms classes as they are
+ * visited, rather than as a {@link ClassNode}.
+ *
+ * <p>Consecutive streaming transformers are applied in a single pass over the
+ * class, and the class is only parsed into a {@link ClassNode} if another
+ * transformer needs it. Whether a class is transformed is decided by
+ * {@link #claims(String, byte[])}, and the class is only rewritten if a
+ * visitor marks the {@link Modification} it was given.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public interface StreamingTransformerService extends TransformerService {
+  /**
+   * Returns a {@link ClassVisitor} that transforms the class with the given
+   * {@link Type} and {@link TransformPhase}, and passes it to the given
+   * {@link ClassVisitor}.
+   *
+   * <p>The visitor must mark the given {@link Modification} if it changes
+   * the class.</p>
+   *
+   * @param type the type
+   * @param visitor the next class visitor
+   * @param phase the transform phase
+   * @param modification the modification to mark
+   * @return the transforming class visitor
+   * @since 1.1.0
+   */
+  @NotNull ClassVisitor visitor(final @NotNull Type type, final @NotNull ClassVisitor visitor, final @NotNull TransformPhase phase, final @NotNull Modification modification);
+
+  @Override
+  default boolean shouldTransform(final @NotNull Type type, final @NotNull ClassNode node) {
+    return true;
+  }
+
+  @Override
+  default @Nullable ClassNode transform(final @NotNull Type type, final @NotNull ClassNode node, final @NotNull TransformPhase phase) throws Throwable {
+    final ClassNode result = new ClassNode(IgniteConstants.ASM_VERSION);
+    final Modification modification = new Modification();
+    node.accept(this.visitor(type, result, phase, modification));
+    return modification.marked() ? result : null;
+  }
+
+  /**
+   * Records whether the visitors of a single pass changed the class.
+   *
+   * @author vectrix
+   * @since 1.1.0
+   */
+  final class Modification {
+    private boolean marked;
+
+    /**
+     * Creates a new unmarked modification.
+     *
+     * @since 1.1.0
+     */
+    public Modification() {
+    }
+
+    /**
+     * Marks the class as changed.
+     *
+     * @since 1.1.0
+     */
+    public void mark() {
+      this.marked = true;
+    }
+
+    /**
+     * Returns {@code true} if the class was changed, otherwise returns
+     * {@code false}.
+     *
+     * @return whether the class was changed
+     * @since 1.1.0
+     */
+    public boolean marked() {
+      return this.marked;
+    }
+  }
+}
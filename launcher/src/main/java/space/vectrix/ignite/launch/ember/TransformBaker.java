@@ -0,0 +1,174 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.tinylog.Logger;
+import space.vectrix.ignite.launch.transformer.MixinTransformerImpl;
+
+/**
+ * Represents the baking of every transformation into a jar, so later launches
+ * with the same inputs can skip mixin and the transformers entirely.
+ *
+ * <p>The baked jar contains each class the transformers changed, and the
+ * synthetic classes generated by mixin that they reference. The manifest
+ * records the fingerprint of the inputs the jar was baked from, and the jar
+ * records the transform dependencies, when they are used.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public final class TransformBaker {
+  /* package */ static final Attributes.Name FINGERPRINT = new Attributes.Name("Ignite-Bake-Fingerprint");
+  /* package */ static final String DEPENDENCIES = "META-INF/ignite/dependencies.bin";
+
+  private static final int CLASS_TAG = 7;
+
+  private final EmberClassLoader loader;
+  private final EmberTransformer transformer;
+
+  /**
+   * Creates a new transform baker.
+   *
+   * @param loader the class loader
+   * @param transformer the transformer
+   * @since 1.1.0
+   */
+  public TransformBaker(final @NotNull EmberClassLoader loader, final @NotNull EmberTransformer transformer) {
+    this.loader = loader;
+    this.transformer = transformer;
+  }
+
+  /**
+   * Transforms every class in the transformation paths and writes the changed
+   * classes to a jar at the given path.
+   *
+   * @param output the baked jar path
+   * @param fingerprint the fingerprint of the transformation inputs
+   * @param dependencies the transform dependencies, or {@code null}
+   * @return the number of classes baked
+   * @throws IOException if the baked jar could not be written
+   * @since 1.1.0
+   */
+  public int bake(final @NotNull Path output, final byte@NotNull [] fingerprint, final @Nullable TransformDependencies dependencies) throws IOException {
+    final Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(TransformBaker.FINGERPRINT, TransformCache.hex(fingerprint));
+
+    // Classes are baked in name order, so the same inputs produce the same jar.
+    final Set<String> names = new TreeSet<>();
+    this.loader.index().forEach("", (name, root) -> {
+      if(name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class")) names.add(name);
+    });
+
+    final Path parent = output.toAbsolutePath().getParent();
+    if(parent != null) Files.createDirectories(parent);
+
+    final Path temporary = output.resolveSibling(output.getFileName() + ".tmp");
+    final Set<String> written = new HashSet<>();
+    final Deque<String> references = new ArrayDeque<>();
+    try {
+      try(final JarOutputStream stream = new JarOutputStream(Files.newOutputStream(temporary), manifest)) {
+        for(final String name : names) {
+          final String className = name.substring(0, name.length() - 6).replace('/', '.');
+          final EmberClassLoader.ClassData original = this.loader.classData(className, TransformPhase.INITIALIZE);
+          final EmberClassLoader.ClassData transformed = this.loader.transformData(className, TransformPhase.INITIALIZE);
+          if(original == null || transformed == null) continue;
+
+          final byte[] bytes = transformed.data();
+          if(bytes == original.data() || Arrays.equals(bytes, original.data())) continue;
+
+          this.write(stream, name, bytes, written, references);
+        }
+
+        // Bake the synthetic classes mixin generated for the baked classes.
+        final MixinTransformerImpl mixinTransformer = this.transformer.transformer(MixinTransformerImpl.class);
+        while(mixinTransformer != null && !references.isEmpty()) {
+          final String internalName = references.poll();
+          final String className = internalName.replace('/', '.');
+          if(written.contains(internalName.concat(".class")) || !mixinTransformer.synthetic(className)) continue;
+
+          final byte[] bytes = this.transformer.transform(className, new byte[0], TransformPhase.INITIALIZE);
+          if(bytes.length == 0) continue;
+
+          this.write(stream, internalName.concat(".class"), bytes, written, references);
+        }
+
+        // Record the dependencies last, so they include every applied mixin.
+        if(dependencies != null) {
+          stream.putNextEntry(new JarEntry(TransformBaker.DEPENDENCIES));
+          dependencies.write(stream);
+          stream.closeEntry();
+        }
+      }
+
+      try {
+        Files.move(temporary, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch(final AtomicMoveNotSupportedException exception) {
+        Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+
+    return written.size();
+  }
+
+  private void write(final @NotNull JarOutputStream stream, final @NotNull String name, final byte@NotNull [] bytes, final @NotNull Set<String> written, final @NotNull Deque<String> references) throws IOException {
+    if(!written.add(name)) return;
+
+    stream.putNextEntry(new JarEntry(name));
+    stream.write(bytes);
+    stream.closeEntry();
+    Logger.trace("Baked class: {}", name);
+
+    // Collect the classes this class references, which may be synthetic.
+    final ClassReader reader = new ClassReader(bytes);
+    final char[] buffer = new char[reader.getMaxStringLength()];
+    for(int index = 1; index < reader.getItemCount(); index++) {
+      final int offset = reader.getItem(index);
+      if(offset > 0 && reader.readByte(offset - 1) == TransformBaker.CLASS_TAG) {
+        references.add(reader.readClass(offset, buffer));
+      }
+    }
+  }
+}
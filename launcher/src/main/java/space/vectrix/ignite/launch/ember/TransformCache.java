@@ -0,0 +1,380 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tinylog.Logger;
+
+/**
+ * Represents a persistent cache of transformed class bytes.
+ *
+ * <p>Entries are addressed by a digest of the class name, transform phase,
+ * input bytes and the fingerprint of the transformation environment, so an
+ * entry is only ever returned for the exact input it was created from. When
+ * transform dependencies are used, the fingerprint of the environment only
+ * covers the sources that change the class.
+ * Entries that are no longer used are evicted, least recently used first,
+ * once the cache exceeds its maximum size.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public final class TransformCache {
+  private static final int MAGIC = 0x454D4243;
+  private static final int HEADER_SIZE = 16;
+  private static final int UNCHANGED = -1;
+  private static final String EXTENSION = ".bin";
+  private static final String TEMPORARY_EXTENSION = ".tmp";
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Path directory;
+  private final byte[] fingerprint;
+  private final long maximumSize;
+  private final TransformDependencies dependencies;
+  private final ExecutorService writer;
+
+  private final AtomicLong size = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder writes = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a new transform cache.
+   *
+   * @param directory the cache directory
+   * @param fingerprint the fingerprint of the transformation environment
+   * @param maximumSize the maximum size of the cache in bytes
+   * @throws IOException if the cache directory could not be prepared
+   * @since 1.1.0
+   */
+  public TransformCache(final @NotNull Path directory, final byte@NotNull [] fingerprint, final long maximumSize) throws IOException {
+    this(directory, fingerprint, maximumSize, null);
+  }
+
+  /**
+   * Creates a new transform cache, with entries that only depend on the
+   * sources that change them.
+   *
+   * @param directory the cache directory
+   * @param fingerprint the fingerprint of the transformation environment
+   * @param maximumSize the maximum size of the cache in bytes
+   * @param dependencies the transform dependencies
+   * @throws IOException if the cache directory could not be prepared
+   * @since 1.1.0
+   */
+  public TransformCache(final @NotNull Path directory, final byte@NotNull [] fingerprint, final long maximumSize, final @Nullable TransformDependencies dependencies) throws IOException {
+    this.directory = directory;
+    this.fingerprint = fingerprint.clone();
+    this.maximumSize = maximumSize;
+    this.dependencies = dependencies;
+    this.writer = Executors.newSingleThreadExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "Ember Cache Writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    Files.createDirectories(directory);
+
+    // Remove any incomplete entries and evict the entries over the size cap.
+    this.evict(true);
+  }
+
+  /**
+   * Returns the number of cache hits.
+   *
+   * @return the cache hits
+   * @since 1.1.0
+   */
+  public long hits() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Returns the number of cache misses.
+   *
+   * @return the cache misses
+   * @since 1.1.0
+   */
+  public long misses() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Returns the number of entries written to the cache.
+   *
+   * @return the cache writes
+   * @since 1.1.0
+   */
+  public long writes() {
+    return this.writes.sum();
+  }
+
+  /**
+   * Returns the number of entries evicted from the cache.
+   *
+   * @return the cache evictions
+   * @since 1.1.0
+   */
+  public long evictions() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * Returns the approximate size of the cache in bytes.
+   *
+   * @return the cache size
+   * @since 1.1.0
+   */
+  public long size() {
+    return this.size.get();
+  }
+
+  /* package */ @NotNull String key(final @NotNull String name, final @NotNull TransformPhase phase, final byte@NotNull [] input) {
+    final MessageDigest digest = TransformCache.digest();
+    digest.update(this.fingerprint);
+    digest.update((byte) phase.ordinal());
+    digest.update(name.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    digest.update(input);
+    if(this.dependencies != null) this.dependencies.digest(digest, name.replace('/', '.'), input.length == 0);
+    return TransformCache.hex(digest.digest());
+  }
+
+  /* package */ byte@Nullable [] get(final @NotNull String key, final byte@NotNull [] input) {
+    final Path path = this.path(key);
+
+    final byte[] bytes;
+    try {
+      bytes = Files.readAllBytes(path);
+    } catch(final NoSuchFileException exception) {
+      this.misses.increment();
+      return null;
+    } catch(final IOException exception) {
+      Logger.debug(exception, "Failed to read cache entry: {}", path);
+      this.misses.increment();
+      return null;
+    }
+
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    if(bytes.length < TransformCache.HEADER_SIZE || buffer.getInt() != TransformCache.MAGIC) {
+      this.discard(path);
+      return null;
+    }
+
+    final int length = buffer.getInt();
+    final long checksum = buffer.getLong();
+    if(length == TransformCache.UNCHANGED) {
+      this.hit(path);
+      return input;
+    }
+
+    if(length != bytes.length - TransformCache.HEADER_SIZE || checksum != TransformCache.checksum(bytes, TransformCache.HEADER_SIZE, length)) {
+      this.discard(path);
+      return null;
+    }
+
+    this.hit(path);
+    return Arrays.copyOfRange(bytes, TransformCache.HEADER_SIZE, bytes.length);
+  }
+
+  /* package */ void put(final @NotNull String key, final byte@Nullable [] output) {
+    final Path path = this.path(key);
+    this.writer.execute(() -> {
+      try {
+        this.write(path, output);
+      } catch(final IOException exception) {
+        Logger.debug(exception, "Failed to write cache entry: {}", path);
+      }
+    });
+  }
+
+  private void hit(final @NotNull Path path) {
+    this.hits.increment();
+
+    // Refresh the entry so it is evicted last.
+    this.writer.execute(() -> {
+      try {
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+      } catch(final IOException exception) {
+        // Ignore
+      }
+    });
+  }
+
+  private void discard(final @NotNull Path path) {
+    Logger.debug("Discarding corrupt cache entry: {}", path);
+    this.misses.increment();
+
+    try {
+      Files.deleteIfExists(path);
+    } catch(final IOException exception) {
+      // Ignore
+    }
+  }
+
+  private void write(final @NotNull Path path, final byte@Nullable [] output) throws IOException {
+    final int length = output != null ? output.length : 0;
+    final ByteBuffer header = ByteBuffer.allocate(TransformCache.HEADER_SIZE)
+      .putInt(TransformCache.MAGIC)
+      .putInt(output != null ? output.length : TransformCache.UNCHANGED)
+      .putLong(output != null ? TransformCache.checksum(output, 0, length) : 0L);
+
+    // Write to a temporary file first, so a crash can never leave a partially
+    // written entry behind.
+    final Path parent = path.getParent();
+    Files.createDirectories(parent);
+    final Path temporary = Files.createTempFile(parent, path.getFileName().toString(), TransformCache.TEMPORARY_EXTENSION);
+    try {
+      try(final OutputStream stream = Files.newOutputStream(temporary)) {
+        stream.write(header.array());
+        if(output != null) stream.write(output);
+      }
+
+      try {
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch(final AtomicMoveNotSupportedException exception) {
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+
+    this.writes.increment();
+    if(this.size.addAndGet(TransformCache.HEADER_SIZE + length) > this.maximumSize) {
+      this.evict(false);
+    }
+  }
+
+  private void evict(final boolean startup) throws IOException {
+    final List<Entry> entries = new ArrayList<>();
+    long total = 0;
+
+    try(final DirectoryStream<Path> shards = Files.newDirectoryStream(this.directory)) {
+      for(final Path shard : shards) {
+        if(!Files.isDirectory(shard)) continue;
+
+        try(final DirectoryStream<Path> files = Files.newDirectoryStream(shard)) {
+          for(final Path file : files) {
+            final String fileName = file.getFileName().toString();
+            if(startup && fileName.endsWith(TransformCache.TEMPORARY_EXTENSION)) {
+              Files.deleteIfExists(file);
+              continue;
+            }
+
+            if(!fileName.endsWith(TransformCache.EXTENSION)) continue;
+
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            entries.add(new Entry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+            total += attributes.size();
+          }
+        }
+      }
+    }
+
+    if(total > this.maximumSize) {
+      // Evict down to 90% of the maximum size, so the cache doesn't have to be
+      // scanned again on the next write.
+      final long target = this.maximumSize - this.maximumSize / 10;
+      entries.sort(Comparator.comparingLong(entry -> entry.lastModified));
+      for(final Entry entry : entries) {
+        if(total <= target) break;
+        if(Files.deleteIfExists(entry.path)) {
+          total -= entry.size;
+          this.evictions.increment();
+        }
+      }
+
+      Logger.debug("Evicted transformation cache entries, cache is now {} bytes", total);
+    }
+
+    this.size.set(total);
+  }
+
+  private @NotNull Path path(final @NotNull String key) {
+    return this.directory.resolve(key.substring(0, 2)).resolve(key.concat(TransformCache.EXTENSION));
+  }
+
+  private static long checksum(final byte@NotNull [] bytes, final int offset, final int length) {
+    final CRC32 checksum = new CRC32();
+    checksum.update(bytes, offset, length);
+    return checksum.getValue();
+  }
+
+  private static @NotNull MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch(final NoSuchAlgorithmException exception) {
+      throw new IllegalStateException("SHA-256 is not available!", exception);
+    }
+  }
+
+  /* package */ static @NotNull String hex(final byte@NotNull [] bytes) {
+    final char[] characters = new char[bytes.length * 2];
+    for(int index = 0; index < bytes.length; index++) {
+      final int value = bytes[index] & 0xFF;
+      characters[index * 2] = TransformCache.HEX[value >>> 4];
+      characters[index * 2 + 1] = TransformCache.HEX[value & 0x0F];
+    }
+
+    return new String(characters);
+  }
+
+  private static final class Entry {
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+
+    /* package */ Entry(final @NotNull Path path, final long size, final long lastModified) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+  }
+}
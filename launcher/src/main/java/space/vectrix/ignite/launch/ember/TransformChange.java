@@ -0,0 +1,67 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+/**
+ * Represents the kind of change a transformer makes to a class.
+ *
+ * <p>The most significant change made to a class decides how much of it is
+ * recomputed when it is written.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public enum TransformChange {
+  /**
+   * The change only affects access flags, signatures or attributes, without
+   * changing the control flow, stack or locals of any method.
+   *
+   * <p>The class is written without recomputing anything, and methods that
+   * were not visited by a transformer are copied as is.</p>
+   *
+   * @since 1.1.0
+   */
+  METADATA,
+
+  /**
+   * The change adds or removes members, where any added method code provides
+   * its own stack map frames.
+   *
+   * <p>The class is written with the maximum stack size and locals
+   * recomputed.</p>
+   *
+   * @since 1.1.0
+   */
+  MEMBERS,
+
+  /**
+   * The change modifies method code.
+   *
+   * <p>The class is written with the stack map frames recomputed.</p>
+   *
+   * @since 1.1.0
+   */
+  CODE
+}
@@ -0,0 +1,298 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the graph of which classes each transformation source changes.
+ *
+ * <p>A source is a mod, identified by its id, with a fingerprint of its
+ * contents. The classes a source changes are recorded as its mixin and
+ * widener targets are resolved, and as its mixins are applied, so that when
+ * a source is changed, added or removed only the transformed output of the
+ * classes it changes has to be invalidated.</p>
+ *
+ * <p>The graph is persisted between launches. The classes recorded for a
+ * source are carried over for as long as its fingerprint is unchanged.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public final class TransformDependencies {
+  private static final int MAGIC = 0x454D4244;
+
+  private final Map<String, Source> previous = new HashMap<>();
+  private final Map<String, byte[]> sources = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> targets = new ConcurrentHashMap<>();
+
+  private volatile Map<String, List<String>> owners;
+  private volatile Set<String> invalidated;
+
+  /**
+   * Creates a new empty transform dependency graph.
+   *
+   * @since 1.1.0
+   */
+  public TransformDependencies() {
+  }
+
+  /**
+   * Reads the graph persisted by a previous launch from the given path.
+   *
+   * @param path the graph path
+   * @throws IOException if the graph could not be read
+   * @since 1.1.0
+   */
+  public void read(final @NotNull Path path) throws IOException {
+    try(final InputStream stream = Files.newInputStream(path)) {
+      this.read(stream);
+    }
+  }
+
+  /**
+   * Writes the graph for the current launch to the given path.
+   *
+   * @param path the graph path
+   * @throws IOException if the graph could not be written
+   * @since 1.1.0
+   */
+  public void write(final @NotNull Path path) throws IOException {
+    final Path parent = path.toAbsolutePath().getParent();
+    if(parent != null) Files.createDirectories(parent);
+
+    final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      try(final OutputStream stream = Files.newOutputStream(temporary)) {
+        this.write(stream);
+      }
+
+      try {
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch(final AtomicMoveNotSupportedException exception) {
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Adds a source to the current launch.
+   *
+   * @param id the source id
+   * @param fingerprint the fingerprint of the source contents
+   * @since 1.1.0
+   */
+  public void source(final @NotNull String id, final byte@NotNull [] fingerprint) {
+    this.sources.put(id, fingerprint.clone());
+  }
+
+  /**
+   * Returns {@code true} if the source with the given id was added or changed
+   * since the previous launch, otherwise returns {@code false}.
+   *
+   * @param id the source id
+   * @return whether the source changed
+   * @since 1.1.0
+   */
+  public boolean changed(final @NotNull String id) {
+    final byte[] fingerprint = this.sources.get(id);
+    final Source source = this.previous.get(id);
+    return fingerprint == null || source == null || !Arrays.equals(fingerprint, source.fingerprint);
+  }
+
+  /**
+   * Records that the source with the given id changes the class with the
+   * given canonical name.
+   *
+   * @param id the source id
+   * @param className the canonical class name
+   * @since 1.1.0
+   */
+  public void target(final @NotNull String id, final @NotNull String className) {
+    if(!this.sources.containsKey(id)) return;
+    this.targets.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).add(className);
+  }
+
+  /**
+   * Resolves the classes changed by each source.
+   *
+   * <p>This should be called once the targets of every added or changed
+   * source are recorded. Until then every class is assumed to depend on
+   * every source.</p>
+   *
+   * @since 1.1.0
+   */
+  public void resolve() {
+    final Map<String, List<String>> resolvedOwners = new HashMap<>();
+    for(final String id : new TreeMap<>(this.sources).keySet()) {
+      for(final String className : this.classes(id)) {
+        resolvedOwners.computeIfAbsent(className, key -> new ArrayList<>(1)).add(id);
+      }
+    }
+
+    // The classes of removed or changed sources as they were, and of added or
+    // changed sources as they are now.
+    final Set<String> resolvedInvalidated = new HashSet<>();
+    for(final Map.Entry<String, Source> entry : this.previous.entrySet()) {
+      if(this.changed(entry.getKey())) resolvedInvalidated.addAll(entry.getValue().classes);
+    }
+
+    for(final String id : this.sources.keySet()) {
+      if(this.changed(id)) resolvedInvalidated.addAll(this.classes(id));
+    }
+
+    this.owners = resolvedOwners;
+    this.invalidated = resolvedInvalidated;
+  }
+
+  /* package */ boolean changed() {
+    if(!this.previous.keySet().equals(this.sources.keySet())) return true;
+    for(final String id : this.sources.keySet()) {
+      if(this.changed(id)) return true;
+    }
+
+    return false;
+  }
+
+  /* package */ boolean invalidated(final @NotNull String className) {
+    final Set<String> resolvedInvalidated = this.invalidated;
+    return resolvedInvalidated != null ? resolvedInvalidated.contains(className) : this.changed();
+  }
+
+  /* package */ void digest(final @NotNull MessageDigest digest, final @NotNull String className, final boolean synthetic) {
+    final Map<String, List<String>> resolvedOwners = this.owners;
+
+    // Synthetic classes may be generated from the mixins of any source.
+    final Iterable<String> ids;
+    if(resolvedOwners == null || synthetic) {
+      ids = new TreeMap<>(this.sources).keySet();
+    } else {
+      ids = resolvedOwners.getOrDefault(className, Collections.emptyList());
+    }
+
+    for(final String id : ids) {
+      final byte[] fingerprint = this.sources.get(id);
+      if(fingerprint == null) continue;
+
+      digest.update(id.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(fingerprint);
+    }
+  }
+
+  /* package */ void read(final @NotNull InputStream stream) throws IOException {
+    final DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+    if(input.readInt() != TransformDependencies.MAGIC) throw new IOException("Invalid transform dependencies");
+
+    final Map<String, Source> read = new HashMap<>();
+    final int sourceCount = input.readInt();
+    for(int sourceIndex = 0; sourceIndex < sourceCount; sourceIndex++) {
+      final String id = input.readUTF();
+      final byte[] fingerprint = new byte[input.readUnsignedShort()];
+      input.readFully(fingerprint);
+
+      final int classCount = input.readInt();
+      final Set<String> classes = new HashSet<>(classCount);
+      for(int classIndex = 0; classIndex < classCount; classIndex++) {
+        classes.add(input.readUTF());
+      }
+
+      read.put(id, new Source(fingerprint, classes));
+    }
+
+    this.previous.clear();
+    this.previous.putAll(read);
+  }
+
+  /* package */ void previous(final @NotNull TransformDependencies other) {
+    this.previous.clear();
+    this.previous.putAll(other.previous);
+  }
+
+  /* package */ void write(final @NotNull OutputStream stream) throws IOException {
+    final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+    final Map<String, byte[]> current = new TreeMap<>(this.sources);
+    output.writeInt(TransformDependencies.MAGIC);
+    output.writeInt(current.size());
+    for(final Map.Entry<String, byte[]> entry : current.entrySet()) {
+      output.writeUTF(entry.getKey());
+      output.writeShort(entry.getValue().length);
+      output.write(entry.getValue());
+
+      final Set<String> classes = this.classes(entry.getKey());
+      output.writeInt(classes.size());
+      for(final String className : classes) {
+        output.writeUTF(className);
+      }
+    }
+
+    output.flush();
+  }
+
+  private @NotNull Set<String> classes(final @NotNull String id) {
+    final Set<String> classes = new HashSet<>(this.targets.getOrDefault(id, Collections.emptySet()));
+
+    // The classes recorded by a previous launch still apply while the source
+    // is unchanged, even if they have not been transformed in this launch.
+    final Source source = this.previous.get(id);
+    if(source != null && !this.changed(id)) classes.addAll(source.classes);
+    return classes;
+  }
+
+  private static final class Source {
+    private final byte[] fingerprint;
+    private final Set<String> classes;
+
+    /* package */ Source(final byte@NotNull [] fingerprint, final @NotNull Set<String> classes) {
+      this.fingerprint = fingerprint;
+      this.classes = classes;
+    }
+  }
+}
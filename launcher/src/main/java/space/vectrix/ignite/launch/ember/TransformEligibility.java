@@ -0,0 +1,130 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Type;
+import org.tinylog.Logger;
+import space.vectrix.ignite.util.IgniteConstants;
+
+/**
+ * Represents the analysis of which transformation paths may contain a
+ * transformation target.
+ *
+ * <p>Jars that contain no target are excluded from transformation, so their
+ * classes are defined without being parsed or passed through the
+ * transformers. Directories are always transformed.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+/* package */ final class TransformEligibility {
+  private static final String MIXIN_DESCRIPTOR = "Lorg/spongepowered/asm/mixin/Mixin;";
+
+  private final ResourceIndex index;
+  private final Set<ResourceRoot> eligible = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /* package */ TransformEligibility(final @NotNull ResourceIndex index) {
+    this.index = index;
+  }
+
+  /* package */ void target(final @NotNull String name) {
+    final String resourceName = name.replace('.', '/').concat(".class");
+    this.eligible.addAll(this.index.findAll(resourceName));
+  }
+
+  /* package */ void prefix(final @NotNull String prefix) {
+    this.index.forEach(prefix.replace('.', '/'), (name, root) -> {
+      if(name.endsWith(".class")) this.eligible.add(root);
+    });
+  }
+
+  /* package */ void mixinPackage(final @NotNull String name) {
+    TransformEligibility.mixinTargets(this.index, name, this::target);
+  }
+
+  /* package */ int apply() {
+    int restricted = 0;
+    for(final ResourceRoot root : this.index.roots()) {
+      if(root.directory() || this.eligible.contains(root)) continue;
+
+      root.transformable(false);
+      restricted++;
+      Logger.debug("Excluded transformation path without targets: {}", root.path());
+    }
+
+    return restricted;
+  }
+
+  /* package */ static void mixinTargets(final @NotNull ResourceIndex index, final @NotNull String mixinPackage, final @NotNull Consumer<String> consumer) {
+    final String prefix = mixinPackage.endsWith(".") ? mixinPackage : mixinPackage.concat(".");
+    index.forEach(prefix.replace('.', '/'), (entryName, root) -> {
+      if(!entryName.endsWith(".class")) return;
+
+      try {
+        final byte[] bytes = root.read(entryName);
+        if(bytes != null) TransformEligibility.mixinTargets(bytes, consumer);
+      } catch(final IOException exception) {
+        Logger.trace(exception, "Failed to read mixin class: {}", entryName);
+      }
+    });
+  }
+
+  private static void mixinTargets(final byte@NotNull [] bytes, final @NotNull Consumer<String> consumer) {
+    final AnnotationVisitor targets = new AnnotationVisitor(IgniteConstants.ASM_VERSION) {
+      @Override
+      public void visit(final @Nullable String name, final @NotNull Object value) {
+        if(value instanceof Type) {
+          consumer.accept(((Type) value).getClassName());
+        } else if(value instanceof String) {
+          consumer.accept(((String) value).replace('/', '.'));
+        }
+      }
+    };
+
+    final AnnotationVisitor mixin = new AnnotationVisitor(IgniteConstants.ASM_VERSION) {
+      @Override
+      public @Nullable AnnotationVisitor visitArray(final @NotNull String name) {
+        return name.equals("value") || name.equals("targets") ? targets : null;
+      }
+    };
+
+    new ClassReader(bytes).accept(new ClassVisitor(IgniteConstants.ASM_VERSION) {
+      @Override
+      public @Nullable AnnotationVisitor visitAnnotation(final @NotNull String descriptor, final boolean visible) {
+        return descriptor.equals(TransformEligibility.MIXIN_DESCRIPTOR) ? mixin : null;
+      }
+    }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a set of exclusion rules compiled into a single prefix trie.
+ *
+ * <p>A rule excludes every name that starts with it, where {@code .} and
+ * {@code /} are the same separator, so a rule matches both class names and
+ * resource paths. Within a rule, {@code *} matches any characters within a
+ * segment and {@code **} matches any characters across segments.</p>
+ *
+ * <p>Names are checked in a single pass over their characters, regardless
+ * of how many rules there are.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public final class TransformExclusions {
+  private static final char SEPARATOR = '.';
+
+  private final List<String> rules = new ArrayList<>();
+
+  private volatile Node root = new Node(Node.NONE);
+
+  /**
+   * Creates a new set of exclusions.
+   *
+   * @param rules the initial rules
+   * @since 1.1.0
+   */
+  public TransformExclusions(final @NotNull String@NotNull ... rules) {
+    for(final String rule : rules) this.add(rule);
+  }
+
+  /**
+   * Adds an exclusion rule.
+   *
+   * @param rule the rule
+   * @since 1.1.0
+   */
+  public synchronized void add(final @NotNull String rule) {
+    if(rule.isEmpty() || this.rules.contains(rule)) return;
+    this.rules.add(rule);
+
+    // The trie is rebuilt rather than changed in place, so it can be read
+    // without locking.
+    final Node compiled = new Node(Node.NONE);
+    for(final String compiledRule : this.rules) {
+      compiled.glob |= TransformExclusions.compile(compiled, compiledRule);
+    }
+
+    this.root = compiled;
+  }
+
+  /**
+   * Returns the exclusion rules.
+   *
+   * @return the rules
+   * @since 1.1.0
+   */
+  public synchronized @NotNull List<String> rules() {
+    return Collections.unmodifiableList(new ArrayList<>(this.rules));
+  }
+
+  /**
+   * Returns {@code true} if the given class name or resource path is
+   * excluded, otherwise returns {@code false}.
+   *
+   * @param name the class name or resource path
+   * @return whether the name is excluded
+   * @since 1.1.0
+   */
+  public boolean excluded(final @NotNull String name) {
+    final Node start = this.root;
+    if(!start.glob) {
+      // Without globs only a single node is ever active.
+      Node node = start;
+      for(int index = 0; index < name.length(); index++) {
+        node = node.next(TransformExclusions.normalize(name.charAt(index)));
+        if(node == null) return false;
+        if(node.terminal) return true;
+      }
+
+      return false;
+    }
+
+    List<Node> active = new ArrayList<>();
+    if(TransformExclusions.activate(active, start)) return true;
+
+    List<Node> following = new ArrayList<>();
+    for(int index = 0; index < name.length() && !active.isEmpty(); index++) {
+      final char character = TransformExclusions.normalize(name.charAt(index));
+      for(final Node node : active) {
+        if(node.loop == Node.ANY || (node.loop == Node.SEGMENT && character != TransformExclusions.SEPARATOR)) {
+          if(TransformExclusions.activate(following, node)) return true;
+        }
+
+        final Node next = node.next(character);
+        if(next != null && TransformExclusions.activate(following, next)) return true;
+      }
+
+      final List<Node> swap = active;
+      active = following;
+      following = swap;
+      following.clear();
+    }
+
+    return false;
+  }
+
+  private static boolean compile(final @NotNull Node root, final @NotNull String rule) {
+    boolean glob = false;
+    Node node = root;
+    for(int index = 0; index < rule.length(); index++) {
+      final char character = TransformExclusions.normalize(rule.charAt(index));
+      if(character != '*') {
+        node = node.child(character);
+        continue;
+      }
+
+      glob = true;
+      if(index + 1 < rule.length() && rule.charAt(index + 1) == '*') {
+        if(node.globstar == null) node.globstar = new Node(Node.ANY);
+        node = node.globstar;
+        index++;
+      } else {
+        if(node.star == null) node.star = new Node(Node.SEGMENT);
+        node = node.star;
+      }
+    }
+
+    node.terminal = true;
+    return glob;
+  }
+
+  private static boolean activate(final @NotNull List<Node> active, final @NotNull Node node) {
+    for(final Node existing : active) {
+      if(existing == node) return false;
+    }
+
+    active.add(node);
+    if(node.terminal) return true;
+
+    // Wildcards may also match nothing.
+    return (node.star != null && TransformExclusions.activate(active, node.star))
+      || (node.globstar != null && TransformExclusions.activate(active, node.globstar));
+  }
+
+  private static char normalize(final char character) {
+    return character == '/' ? TransformExclusions.SEPARATOR : character;
+  }
+
+  private static final class Node {
+    private static final int NONE = 0;
+    private static final int SEGMENT = 1;
+    private static final int ANY = 2;
+
+    private final int loop;
+    private char[] keys = new char[0];
+    private Node[] children = new Node[0];
+    private Node star;
+    private Node globstar;
+    private boolean terminal;
+    private boolean glob;
+
+    /* package */ Node(final int loop) {
+      this.loop = loop;
+    }
+
+    /* package */ @Nullable Node next(final char character) {
+      // Nodes have few children, so a linear scan beats hashing.
+      for(int index = 0; index < this.keys.length; index++) {
+        if(this.keys[index] == character) return this.children[index];
+      }
+
+      return null;
+    }
+
+    /* package */ @NotNull Node child(final char character) {
+      final Node existing = this.next(character);
+      if(existing != null) return existing;
+
+      final Node created = new Node(Node.NONE);
+      this.keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+      this.children = Arrays.copyOf(this.children, this.children.length + 1);
+      this.keys[this.keys.length - 1] = character;
+      this.children[this.children.length - 1] = created;
+      return created;
+    }
+  }
+}
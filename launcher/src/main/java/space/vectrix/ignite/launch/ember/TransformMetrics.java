@@ -0,0 +1,304 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the metrics of each transformer, and of parsing and writing
+ * classes, for each transform phase.
+ *
+ * <p>The metrics are updated as classes are transformed, so they may be
+ * queried at any time.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public final class TransformMetrics {
+  private final Map<TransformPhase, Map<TransformerService, Stage>> transformers = new EnumMap<>(TransformPhase.class);
+  private final Map<TransformPhase, Stage> parse = new EnumMap<>(TransformPhase.class);
+  private final Map<TransformPhase, Stage> write = new EnumMap<>(TransformPhase.class);
+
+  /* package */ TransformMetrics(final @NotNull Map<TransformPhase, TransformerService[]> pipelines) {
+    for(final TransformPhase phase : TransformPhase.values()) {
+      final Map<TransformerService, Stage> stages = new IdentityHashMap<>();
+      for(final TransformerService service : pipelines.get(phase)) {
+        stages.put(service, new Stage(service.getClass().getName(), phase));
+      }
+
+      this.transformers.put(phase, stages);
+      this.parse.put(phase, new Stage("(parse)", phase));
+      this.write.put(phase, new Stage("(write)", phase));
+    }
+  }
+
+  /**
+   * Returns the metrics of every stage that has been used, with the most time
+   * spent first.
+   *
+   * @return the stage metrics
+   * @since 1.1.0
+   */
+  public @NotNull List<Stage> stages() {
+    final List<Stage> stages = new ArrayList<>();
+    for(final TransformPhase phase : TransformPhase.values()) {
+      TransformMetrics.used(stages, this.transformers.get(phase).values());
+      TransformMetrics.used(stages, Collections.singletonList(this.parse.get(phase)));
+      TransformMetrics.used(stages, Collections.singletonList(this.write.get(phase)));
+    }
+
+    stages.sort(Comparator.comparingLong(Stage::time).reversed());
+    return stages;
+  }
+
+  /* package */ @NotNull Stage transformer(final @NotNull TransformerService service, final @NotNull TransformPhase phase) {
+    return this.transformers.get(phase).get(service);
+  }
+
+  /* package */ @NotNull Stage parse(final @NotNull TransformPhase phase) {
+    return this.parse.get(phase);
+  }
+
+  /* package */ @NotNull Stage write(final @NotNull TransformPhase phase) {
+    return this.write.get(phase);
+  }
+
+  private static void used(final @NotNull List<Stage> stages, final @NotNull Collection<Stage> candidates) {
+    for(final Stage stage : candidates) {
+      if(stage.offered() > 0 || stage.invocations() > 0) stages.add(stage);
+    }
+  }
+
+  /**
+   * Represents the metrics of a transformer, or of parsing or writing
+   * classes, in a transform phase.
+   *
+   * <p>Times are kept in a histogram with power of two buckets, so the
+   * percentiles are upper bounds within a factor of two. The time of a
+   * streaming pass includes reading and writing the class, and a pass that
+   * fuses several streaming transformers is split evenly between them.</p>
+   *
+   * @since 1.1.0
+   */
+  public static final class Stage {
+    private static final int BUCKETS = 64;
+
+    private final String name;
+    private final TransformPhase phase;
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder claimed = new LongAdder();
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder transformed = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final LongAdder time = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+    private final LongAdder inputBytes = new LongAdder();
+    private final LongAdder outputBytes = new LongAdder();
+    private final AtomicLongArray histogram = new AtomicLongArray(Stage.BUCKETS);
+
+    /* package */ Stage(final @NotNull String name, final @NotNull TransformPhase phase) {
+      this.name = name;
+      this.phase = phase;
+    }
+
+    /**
+     * Returns the name of the transformer, or of the stage.
+     *
+     * @return the name
+     * @since 1.1.0
+     */
+    public @NotNull String name() {
+      return this.name;
+    }
+
+    /**
+     * Returns the transform phase.
+     *
+     * @return the phase
+     * @since 1.1.0
+     */
+    public @NotNull TransformPhase phase() {
+      return this.phase;
+    }
+
+    /**
+     * Returns the number of classes offered to the transformer.
+     *
+     * @return the offered classes
+     * @since 1.1.0
+     */
+    public long offered() {
+      return this.offered.sum();
+    }
+
+    /**
+     * Returns the number of offered classes the transformer claimed.
+     *
+     * @return the claimed classes
+     * @since 1.1.0
+     */
+    public long claimed() {
+      return this.claimed.sum();
+    }
+
+    /**
+     * Returns the number of times the stage ran.
+     *
+     * @return the invocations
+     * @since 1.1.0
+     */
+    public long invocations() {
+      return this.invocations.sum();
+    }
+
+    /**
+     * Returns the number of classes the transformer changed, counting every
+     * pass of a streaming transformer.
+     *
+     * @return the transformed classes
+     * @since 1.1.0
+     */
+    public long transformed() {
+      return this.transformed.sum();
+    }
+
+    /**
+     * Returns the number of exceptions thrown by the stage.
+     *
+     * @return the exceptions
+     * @since 1.1.0
+     */
+    public long exceptions() {
+      return this.exceptions.sum();
+    }
+
+    /**
+     * Returns the cumulative time spent in the stage, in nanoseconds.
+     *
+     * @return the cumulative time
+     * @since 1.1.0
+     */
+    public long time() {
+      return this.time.sum();
+    }
+
+    /**
+     * Returns the cumulative time spent waiting to enter the critical section
+     * of exclusive transformers, in nanoseconds.
+     *
+     * @return the cumulative wait time
+     * @since 1.1.0
+     */
+    public long waitTime() {
+      return this.waitTime.sum();
+    }
+
+    /**
+     * Returns the time within which the given fraction of invocations
+     * completed, in nanoseconds.
+     *
+     * @param percentile the percentile, between 0 and 1
+     * @return the percentile time
+     * @since 1.1.0
+     */
+    public long percentile(final double percentile) {
+      long total = 0;
+      final long[] counts = new long[Stage.BUCKETS];
+      for(int index = 0; index < Stage.BUCKETS; index++) {
+        counts[index] = this.histogram.get(index);
+        total += counts[index];
+      }
+
+      if(total == 0) return 0;
+
+      final long target = Math.max(1, (long) Math.ceil(total * percentile));
+      long seen = 0;
+      for(int index = 0; index < Stage.BUCKETS; index++) {
+        seen += counts[index];
+        if(seen >= target) return index == Stage.BUCKETS - 1 ? Long.MAX_VALUE : (1L << (index + 1)) - 1;
+      }
+
+      return Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the total size of the classes the transformer ran on, before
+     * they were transformed.
+     *
+     * @return the input bytes
+     * @since 1.1.0
+     */
+    public long inputBytes() {
+      return this.inputBytes.sum();
+    }
+
+    /**
+     * Returns the total size of the classes the transformer ran on, after
+     * every transformer ran.
+     *
+     * @return the output bytes
+     * @since 1.1.0
+     */
+    public long outputBytes() {
+      return this.outputBytes.sum();
+    }
+
+    /* package */ void offered(final boolean claims) {
+      this.offered.increment();
+      if(claims) this.claimed.increment();
+    }
+
+    /* package */ void invoked(final long time, final boolean changed) {
+      this.invocations.increment();
+      if(changed) this.transformed.increment();
+
+      this.time.add(time);
+      this.histogram.incrementAndGet(Stage.BUCKETS - 1 - Long.numberOfLeadingZeros(Math.max(1, time)));
+    }
+
+    /* package */ void waited(final long time) {
+      this.waitTime.add(time);
+    }
+
+    /* package */ void failed() {
+      this.exceptions.increment();
+    }
+
+    /* package */ void bytes(final int input, final int output) {
+      this.inputBytes.add(input);
+      this.outputBytes.add(output);
+    }
+  }
+}
@@ -24,8 +24,11 @@
  */
 package space.vectrix.ignite.launch.ember;
 
+import java.util.Collection;
+import java.util.Collections;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 
@@ -50,8 +53,10 @@ public interface TransformerService {
    * <p>A result of -1 means this transformer should not be applied during
    * the given phase.</p>
    *
-   * <p>This method will be called multiple times for sorting the transformers
-   * each class.</p>
+   * <p>This method is called once for each phase, when the transformers are
+   * ordered. Transformers with the same priority are applied in an
+   * unspecified order, unless they declare {@link #before()} or
+   * {@link #after()} constraints.</p>
    *
    * @param phase the transform phase
    * @return the priority
@@ -59,6 +64,126 @@ public interface TransformerService {
    */
   int priority(final @NotNull TransformPhase phase);
 
+  /**
+   * Returns the transformers this transformer must be applied before.
+   *
+   * <p>Constraints take precedence over the {@link #priority(TransformPhase)}
+   * and are ignored for transformers that are not present, or are not applied
+   * during the phase.</p>
+   *
+   * @return the transformers applied after this transformer
+   * @since 1.1.0
+   */
+  default @NotNull Collection<Class<? extends TransformerService>> before() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns the transformers this transformer must be applied after.
+   *
+   * <p>Constraints take precedence over the {@link #priority(TransformPhase)}
+   * and are ignored for transformers that are not present, or are not applied
+   * during the phase.</p>
+   *
+   * @return the transformers applied before this transformer
+   * @since 1.1.0
+   */
+  default @NotNull Collection<Class<? extends TransformerService>> after() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns the most significant {@link TransformChange} this transformer
+   * makes to the classes it transforms.
+   *
+   * <p>This decides how much of a transformed class is recomputed when it
+   * is written, so it must not understate the change.</p>
+   *
+   * @return the transform change
+   * @since 1.1.0
+   */
+  default @NotNull TransformChange change() {
+    return TransformChange.CODE;
+  }
+
+  /**
+   * Returns the {@link ClassReader} flags for the parts of a class this
+   * transformer does not need.
+   *
+   * <p>{@link ClassReader#SKIP_FRAMES} is only applied when every transformer
+   * applied to a class allows it, in which case the frames are recomputed
+   * when the class is written. {@link ClassReader#EXPAND_FRAMES} is applied
+   * when any transformer requests it.</p>
+   *
+   * @return the reader flags
+   * @since 1.1.0
+   */
+  default int readerFlags() {
+    return 0;
+  }
+
+  /**
+   * Returns {@code true} if this transformer can only transform one class at
+   * a time, otherwise returns {@code false}.
+   *
+   * <p>Exclusive transformers run in a critical section shared by every
+   * exclusive transformer. Parsing, writing and the other transformers run
+   * in parallel across the threads loading classes.</p>
+   *
+   * @return whether this transformer is exclusive
+   * @since 1.1.0
+   */
+  default boolean exclusive() {
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if this transformer may transform the class with the
+   * given name and input class bytes, otherwise returns {@code false}.
+   *
+   * <p>This is checked before the class is parsed, so it should be cheap.
+   * Transformers are not applied to classes they do not claim, and if no
+   * transformer claims a class, the input class bytes are used without being
+   * parsed. Synthetic classes have empty input class bytes.</p>
+   *
+   * @param className the canonical class name
+   * @param input the input class bytes
+   * @return whether the class may be transformed
+   * @since 1.1.0
+   */
+  default boolean claims(final @NotNull String className, final byte@NotNull [] input) {
+    return true;
+  }
+
+  /**
+   * Returns the canonical names of the classes this transformer may
+   * transform, or {@code null} if they are not known.
+   *
+   * <p>When transformation is restricted, only the transformation paths
+   * containing a target, or a class matching a target prefix, are passed
+   * through the transformers. A transformer that returns {@code null} from
+   * both this and {@link #targetPrefixes()} may transform any class, so
+   * transformation is not restricted.</p>
+   *
+   * @return the class names, or {@code null} if not known
+   * @since 1.1.0
+   */
+  default @Nullable Collection<String> targets() {
+    return null;
+  }
+
+  /**
+   * Returns the prefixes of the canonical names of the classes this
+   * transformer may transform, or {@code null} if they are not known.
+   *
+   * @return the class name prefixes, or {@code null} if not known
+   * @see #targets()
+   * @since 1.1.0
+   */
+  default @Nullable Collection<String> targetPrefixes() {
+    return null;
+  }
+
   /**
    * Returns {@code true} if this transformer should transform the given
    * {@link Type} and {@link ClassNode}, otherwise returns {@code false}.
@@ -29,13 +29,18 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
 import net.fabricmc.accesswidener.AccessWidener;
 import net.fabricmc.accesswidener.AccessWidenerClassVisitor;
 import net.fabricmc.accesswidener.AccessWidenerReader;
+import net.fabricmc.accesswidener.ForwardingVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Type;
-import org.objectweb.asm.tree.ClassNode;
+import space.vectrix.ignite.launch.ember.StreamingTransformerService;
+import space.vectrix.ignite.launch.ember.TransformChange;
 import space.vectrix.ignite.launch.ember.TransformPhase;
 import space.vectrix.ignite.launch.ember.TransformerService;
 import space.vectrix.ignite.util.IgniteConstants;
@@ -46,7 +51,7 @@ import space.vectrix.ignite.util.IgniteConstants;
  * @author vectrix
  * @since 1.0.0
  */
-public final class AccessTransformerImpl implements TransformerService {
+public final class AccessTransformerImpl implements StreamingTransformerService {
   private final AccessWidener widener = new AccessWidener();
   private final AccessWidenerReader widenerReader = new AccessWidenerReader(this.widener);
 
@@ -63,6 +68,37 @@ public final class AccessTransformerImpl implements TransformerService {
     }
   }
 
+  /**
+   * Adds a widener to this transformer, and returns the class names it
+   * targets.
+   *
+   * @param path the configuration path
+   * @return the class names targeted by the widener
+   * @throws IOException if an error occurs while reading the widener
+   * @since 1.1.0
+   */
+  public @NotNull Set<String> addWidenerWithTargets(final @NotNull Path path) throws IOException {
+    // The widener is read once, into both this transformer and a widener of
+    // its own for just its targets.
+    final AccessWidener single = new AccessWidener();
+    try(final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      new AccessWidenerReader(new ForwardingVisitor(this.widener, single)).read(reader);
+    }
+
+    return Collections.unmodifiableSet(single.getTargets());
+  }
+
+  /**
+   * Returns the class names targeted by the wideners.
+   *
+   * @return the widener targets
+   * @since 1.1.0
+   */
+  @Override
+  public @NotNull Set<String> targets() {
+    return Collections.unmodifiableSet(this.widener.getTargets());
+  }
+
   @Override
   public void prepare() {
   }
@@ -77,18 +113,29 @@ public final class AccessTransformerImpl implements TransformerService {
   }
 
   @Override
-  public boolean shouldTransform(final @NotNull Type type, final @NotNull ClassNode node) {
-    // Only transform targets that need to be widened.
-    return this.widener.getTargets().contains(node.name.replace('/', '.'));
+  public @NotNull Collection<Class<? extends TransformerService>> before() {
+    // Mixins may depend on the widened access.
+    return Collections.singletonList(MixinTransformerImpl.class);
   }
 
   @Override
-  public @NotNull ClassNode transform(final @NotNull Type type, final @NotNull ClassNode node, final @NotNull TransformPhase phase) throws Throwable {
-    final ClassNode writer = new ClassNode(IgniteConstants.ASM_VERSION);
-    final ClassVisitor visitor = AccessWidenerClassVisitor.createClassVisitor(IgniteConstants.ASM_VERSION, writer, this.widener);
+  public @NotNull TransformChange change() {
+    // Widening only changes access flags, and the opcode of calls to methods
+    // that are no longer private, so the frames are unchanged.
+    return TransformChange.METADATA;
+  }
 
-    node.accept(visitor);
+  @Override
+  public boolean claims(final @NotNull String className, final byte@NotNull [] input) {
+    return this.widener.getTargets().contains(className);
+  }
+
+  @Override
+  public @NotNull ClassVisitor visitor(final @NotNull Type type, final @NotNull ClassVisitor visitor, final @NotNull TransformPhase phase, final @NotNull Modification modification) {
+    // The widener only visits its targets, which it widens.
+    if(!this.widener.getTargets().contains(type.getClassName())) return visitor;
 
-    return writer;
+    modification.mark();
+    return AccessWidenerClassVisitor.createClassVisitor(IgniteConstants.ASM_VERSION, visitor, this.widener);
   }
 }
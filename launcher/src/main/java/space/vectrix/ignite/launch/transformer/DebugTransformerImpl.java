@@ -0,0 +1,288 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.transformer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import space.vectrix.ignite.launch.ember.StreamingTransformerService;
+import space.vectrix.ignite.launch.ember.TransformChange;
+import space.vectrix.ignite.launch.ember.TransformPhase;
+import space.vectrix.ignite.launch.ember.TransformerService;
+import space.vectrix.ignite.util.IgniteConstants;
+
+/**
+ * Provides the debug attribute stripping transformer for Ignite.
+ *
+ * <p>Nothing is stripped unless a package is configured. Line numbers are
+ * kept by default, so stack traces stay useful.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public final class DebugTransformerImpl implements StreamingTransformerService {
+  /**
+   * Strips the line number tables.
+   *
+   * @since 1.1.0
+   */
+  public static final int LINES = 1;
+
+  /**
+   * Strips the local variable tables and local variable type tables.
+   *
+   * @since 1.1.0
+   */
+  public static final int LOCALS = 1 << 1;
+
+  /**
+   * Strips the source file attribute.
+   *
+   * @since 1.1.0
+   */
+  public static final int SOURCE = 1 << 2;
+
+  /**
+   * Strips the source debug extension attribute.
+   *
+   * @since 1.1.0
+   */
+  public static final int EXTENSION = 1 << 3;
+
+  /**
+   * The attributes stripped when a package does not specify them.
+   *
+   * @since 1.1.0
+   */
+  public static final int DEFAULT = DebugTransformerImpl.LOCALS | DebugTransformerImpl.EXTENSION;
+
+  // The size of each stripped entry in the class file.
+  private static final int LINE_SIZE = 4;
+  private static final int LOCAL_SIZE = 10;
+  private static final int SOURCE_SIZE = 8;
+
+  private final List<Rule> rules = new ArrayList<>();
+  private final LongAdder strippedClasses = new LongAdder();
+  private final LongAdder strippedBytes = new LongAdder();
+
+  /**
+   * Strips the given debug attributes from the classes in the given package.
+   *
+   * <p>The most specific package configured for a class decides what is
+   * stripped from it.</p>
+   *
+   * @param prefix the package prefix
+   * @param attributes the attributes to strip
+   * @since 1.1.0
+   */
+  public void strip(final @NotNull String prefix, final int attributes) {
+    this.rules.removeIf(rule -> rule.prefix.equals(prefix));
+    this.rules.add(new Rule(prefix, attributes));
+    this.rules.sort(Comparator.comparingInt((Rule rule) -> rule.prefix.length()).reversed());
+  }
+
+  /**
+   * Parses the attributes to strip, from a list of {@code lines},
+   * {@code locals}, {@code source} and {@code extension} separated by
+   * {@code +}, or {@code none} to strip nothing.
+   *
+   * @param attributes the attribute names
+   * @return the attributes
+   * @throws IllegalArgumentException if an attribute is unknown
+   * @since 1.1.0
+   */
+  public static int attributes(final @NotNull String attributes) {
+    int result = 0;
+    for(final String attribute : attributes.split("\\+")) {
+      switch(attribute.trim().toLowerCase(Locale.ROOT)) {
+        case "lines": {
+          result |= DebugTransformerImpl.LINES;
+          break;
+        }
+        case "locals": {
+          result |= DebugTransformerImpl.LOCALS;
+          break;
+        }
+        case "source": {
+          result |= DebugTransformerImpl.SOURCE;
+          break;
+        }
+        case "extension": {
+          result |= DebugTransformerImpl.EXTENSION;
+          break;
+        }
+        case "none": {
+          break;
+        }
+        default: {
+          throw new IllegalArgumentException("Unknown debug attribute: " + attribute);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the number of classes debug attributes were stripped from.
+   *
+   * @return the stripped classes
+   * @since 1.1.0
+   */
+  public long strippedClasses() {
+    return this.strippedClasses.sum();
+  }
+
+  /**
+   * Returns the approximate size of the debug attributes stripped, in bytes.
+   *
+   * @return the stripped bytes
+   * @since 1.1.0
+   */
+  public long strippedBytes() {
+    return this.strippedBytes.sum();
+  }
+
+  @Override
+  public void prepare() {
+  }
+
+  @Override
+  public int priority(final @NotNull TransformPhase phase) {
+    // Mixin locates injection points by line number, so only strip on the
+    // initialize phase.
+    if(phase != TransformPhase.INITIALIZE) return -1;
+    // This prioritizes stripping at the end of the transformation pipeline.
+    return 100;
+  }
+
+  @Override
+  public @NotNull Collection<Class<? extends TransformerService>> after() {
+    // Mixins add debug attributes from the mixin classes.
+    return Collections.singletonList(MixinTransformerImpl.class);
+  }
+
+  @Override
+  public @NotNull TransformChange change() {
+    // Debug attributes don't affect the code or frames.
+    return TransformChange.METADATA;
+  }
+
+  @Override
+  public @NotNull Collection<String> targetPrefixes() {
+    // Without rules nothing is stripped, so no class is a target.
+    final List<String> prefixes = new ArrayList<>();
+    for(final Rule rule : this.rules) {
+      if(rule.attributes != 0) prefixes.add(rule.prefix);
+    }
+
+    return prefixes;
+  }
+
+  @Override
+  public boolean claims(final @NotNull String className, final byte@NotNull [] input) {
+    return this.rule(className) != null;
+  }
+
+  @Override
+  public @NotNull ClassVisitor visitor(final @NotNull Type type, final @NotNull ClassVisitor visitor, final @NotNull TransformPhase phase, final @NotNull Modification modification) {
+    final Rule rule = this.rule(type.getClassName());
+    if(rule == null) return visitor;
+
+    this.strippedClasses.increment();
+    final int attributes = rule.attributes;
+    return new ClassVisitor(IgniteConstants.ASM_VERSION, visitor) {
+      @Override
+      public void visitSource(final @Nullable String source, final @Nullable String debug) {
+        final boolean stripSource = source != null && (attributes & DebugTransformerImpl.SOURCE) != 0;
+        final boolean stripDebug = debug != null && (attributes & DebugTransformerImpl.EXTENSION) != 0;
+        if(stripSource) DebugTransformerImpl.this.strippedBytes.add(DebugTransformerImpl.SOURCE_SIZE);
+        if(stripDebug) DebugTransformerImpl.this.strippedBytes.add(DebugTransformerImpl.SOURCE_SIZE + debug.length());
+        if(stripSource || stripDebug) modification.mark();
+        super.visitSource(stripSource ? null : source, stripDebug ? null : debug);
+      }
+
+      @Override
+      public @Nullable MethodVisitor visitMethod(final int access, final @NotNull String name, final @NotNull String descriptor, final @Nullable String signature, final String@Nullable [] exceptions) {
+        final MethodVisitor methodVisitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+        if(methodVisitor == null) return null;
+
+        return new MethodVisitor(IgniteConstants.ASM_VERSION, methodVisitor) {
+          @Override
+          public void visitLineNumber(final int line, final @NotNull Label start) {
+            if((attributes & DebugTransformerImpl.LINES) != 0) {
+              DebugTransformerImpl.this.strippedBytes.add(DebugTransformerImpl.LINE_SIZE);
+              modification.mark();
+              return;
+            }
+
+            super.visitLineNumber(line, start);
+          }
+
+          @Override
+          public void visitLocalVariable(final @NotNull String name, final @NotNull String descriptor, final @Nullable String signature, final @NotNull Label start, final @NotNull Label end, final int index) {
+            if((attributes & DebugTransformerImpl.LOCALS) != 0) {
+              DebugTransformerImpl.this.strippedBytes.add(signature != null ? DebugTransformerImpl.LOCAL_SIZE * 2 : DebugTransformerImpl.LOCAL_SIZE);
+              modification.mark();
+              return;
+            }
+
+            super.visitLocalVariable(name, descriptor, signature, start, end, index);
+          }
+        };
+      }
+    };
+  }
+
+  private @Nullable Rule rule(final @NotNull String className) {
+    // The rules are sorted longest first, so the first match is the most
+    // specific.
+    for(final Rule rule : this.rules) {
+      if(className.startsWith(rule.prefix)) return rule.attributes != 0 ? rule : null;
+    }
+
+    return null;
+  }
+
+  private static final class Rule {
+    private final String prefix;
+    private final int attributes;
+
+    /* package */ Rule(final @NotNull String prefix, final int attributes) {
+      this.prefix = prefix;
+      this.attributes = attributes;
+    }
+  }
+}
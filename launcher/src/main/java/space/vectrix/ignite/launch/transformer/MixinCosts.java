@@ -0,0 +1,213 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.transformer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+import org.spongepowered.asm.mixin.FabricUtil;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+
+/**
+ * Represents the time spent applying mixins, attributed to each mod, mixin
+ * configuration, mixin class and target class.
+ *
+ * <p>The time spent transforming a target is split evenly between the mixins
+ * applied to it, and the time spent generating a synthetic class is
+ * attributed to the mixin it was generated for.</p>
+ *
+ * @author vectrix
+ * @since 1.1.0
+ */
+public final class MixinCosts {
+  private static final String UNKNOWN_MOD = "(unknown)";
+
+  private final Map<String, Counter> mods = new ConcurrentHashMap<>();
+  private final Map<String, Counter> configs = new ConcurrentHashMap<>();
+  private final Map<String, Counter> mixins = new ConcurrentHashMap<>();
+  private final Map<String, Counter> targets = new ConcurrentHashMap<>();
+  private final LongAdder unattributed = new LongAdder();
+
+  /* package */ MixinCosts() {
+  }
+
+  /**
+   * Returns the cost of each mod, with the most time spent first.
+   *
+   * @return the mod costs
+   * @since 1.1.0
+   */
+  public @NotNull List<Cost> mods() {
+    return MixinCosts.sorted(this.mods);
+  }
+
+  /**
+   * Returns the cost of each mixin configuration, with the most time spent
+   * first.
+   *
+   * @return the configuration costs
+   * @since 1.1.0
+   */
+  public @NotNull List<Cost> configs() {
+    return MixinCosts.sorted(this.configs);
+  }
+
+  /**
+   * Returns the cost of each mixin class, with the most time spent first.
+   *
+   * @return the mixin costs
+   * @since 1.1.0
+   */
+  public @NotNull List<Cost> mixins() {
+    return MixinCosts.sorted(this.mixins);
+  }
+
+  /**
+   * Returns the cost of each target class, with the most time spent first.
+   *
+   * @return the target costs
+   * @since 1.1.0
+   */
+  public @NotNull List<Cost> targets() {
+    return MixinCosts.sorted(this.targets);
+  }
+
+  /**
+   * Returns the time spent in mixin on classes it did not apply any mixins
+   * to, in nanoseconds.
+   *
+   * @return the unattributed time
+   * @since 1.1.0
+   */
+  public long unattributedTime() {
+    return this.unattributed.sum();
+  }
+
+  /* package */ void transformed(final @NotNull String target, final @NotNull Collection<IMixinInfo> applied, final long time) {
+    if(applied.isEmpty()) {
+      this.unattributed.add(time);
+      return;
+    }
+
+    MixinCosts.cost(this.targets, target).add(applied.size(), time);
+
+    final long share = time / applied.size();
+    for(final IMixinInfo mixin : applied) {
+      this.attribute(mixin, share);
+    }
+  }
+
+  /* package */ void generated(final @NotNull IMixinInfo mixin, final long time) {
+    this.attribute(mixin, time);
+  }
+
+  /* package */ void unattributed(final long time) {
+    this.unattributed.add(time);
+  }
+
+  private void attribute(final @NotNull IMixinInfo mixin, final long time) {
+    MixinCosts.cost(this.mods, FabricUtil.getModId(mixin.getConfig(), MixinCosts.UNKNOWN_MOD)).add(1, time);
+    MixinCosts.cost(this.configs, mixin.getConfig().getName()).add(1, time);
+    MixinCosts.cost(this.mixins, mixin.getClassName()).add(1, time);
+  }
+
+  private static @NotNull Counter cost(final @NotNull Map<String, Counter> costs, final @NotNull String name) {
+    return costs.computeIfAbsent(name, key -> new Counter());
+  }
+
+  private static @NotNull List<Cost> sorted(final @NotNull Map<String, Counter> costs) {
+    // The counters are still being added to, so they are copied before they
+    // are sorted.
+    final List<Cost> sorted = new ArrayList<>(costs.size());
+    costs.forEach((name, counter) -> sorted.add(new Cost(name, counter.applications.sum(), counter.time.sum())));
+    sorted.sort(Comparator.comparingLong(Cost::time).reversed());
+    return sorted;
+  }
+
+  /**
+   * Represents the time spent applying mixins for a mod, mixin
+   * configuration, mixin class or target class, as it was when the costs
+   * were requested.
+   *
+   * @since 1.1.0
+   */
+  public static final class Cost {
+    private final String name;
+    private final long applications;
+    private final long time;
+
+    /* package */ Cost(final @NotNull String name, final long applications, final long time) {
+      this.name = name;
+      this.applications = applications;
+      this.time = time;
+    }
+
+    /**
+     * Returns the name of the mod, mixin configuration, mixin class or target
+     * class.
+     *
+     * @return the name
+     * @since 1.1.0
+     */
+    public @NotNull String name() {
+      return this.name;
+    }
+
+    /**
+     * Returns the number of mixins applied, and synthetic classes generated.
+     *
+     * @return the applications
+     * @since 1.1.0
+     */
+    public long applications() {
+      return this.applications;
+    }
+
+    /**
+     * Returns the time spent, in nanoseconds.
+     *
+     * @return the time
+     * @since 1.1.0
+     */
+    public long time() {
+      return this.time;
+    }
+  }
+
+  private static final class Counter {
+    private final LongAdder applications = new LongAdder();
+    private final LongAdder time = new LongAdder();
+
+    /* package */ void add(final long applications, final long time) {
+      this.applications.add(applications);
+      this.time.add(time);
+    }
+  }
+}
@@ -24,16 +24,29 @@
  */
 package space.vectrix.ignite.launch.transformer;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.mixin.FabricUtil;
 import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.Mixins;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.transformer.ClassInfo;
+import org.spongepowered.asm.mixin.transformer.Config;
 import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
 import org.spongepowered.asm.mixin.transformer.IMixinTransformerFactory;
+import org.spongepowered.asm.service.ISyntheticClassInfo;
 import org.spongepowered.asm.service.ISyntheticClassRegistry;
 import org.spongepowered.asm.transformers.MixinClassReader;
+import space.vectrix.ignite.launch.ember.TransformDependencies;
 import space.vectrix.ignite.launch.ember.TransformPhase;
 import space.vectrix.ignite.launch.ember.TransformerService;
 import space.vectrix.ignite.util.IgniteConstants;
@@ -48,6 +61,12 @@ public final class MixinTransformerImpl implements TransformerService {
   private IMixinTransformerFactory transformerFactory;
   private IMixinTransformer transformer;
   private ISyntheticClassRegistry registry;
+  private TransformDependencies dependencies;
+
+  private final MixinCosts costs = new MixinCosts();
+  private final Set<String> targets = ConcurrentHashMap.newKeySet();
+  private final Set<String> indexedConfigs = ConcurrentHashMap.newKeySet();
+  private volatile boolean indexed;
 
   /**
    * Offers the transformer factory to this transformer.
@@ -59,6 +78,51 @@ public final class MixinTransformerImpl implements TransformerService {
     this.transformerFactory = factory;
   }
 
+  /**
+   * Offers the dependencies to record the classes each mod's mixins change
+   * to this transformer.
+   *
+   * @param dependencies the dependencies
+   * @since 1.1.0
+   */
+  public void dependencies(final @Nullable TransformDependencies dependencies) {
+    this.dependencies = dependencies;
+  }
+
+  /**
+   * Adds the targets of the given mixin configuration to the index of
+   * classes this transformer claims.
+   *
+   * <p>Until every registered configuration is indexed, every class is
+   * claimed. Configurations added after the first class is transformed
+   * must be indexed as well.</p>
+   *
+   * @param config the configuration name
+   * @param targets the canonical names of the targets
+   * @since 1.1.0
+   */
+  public void index(final @NotNull String config, final @NotNull Collection<String> targets) {
+    synchronized(this.indexedConfigs) {
+      this.targets.addAll(targets);
+      this.indexedConfigs.add(config);
+
+      // The configuration may not be selected by mixin yet, so the index is
+      // checked against mixin again.
+      this.indexed = false;
+    }
+  }
+
+  /**
+   * Returns the time spent applying mixins, attributed to each mod, mixin
+   * configuration, mixin class and target class.
+   *
+   * @return the mixin costs
+   * @since 1.1.0
+   */
+  public @NotNull MixinCosts costs() {
+    return this.costs;
+  }
+
   @Override
   public void prepare() {
     if(this.transformerFactory == null) throw new IllegalStateException("Transformer factory is not available!");
@@ -76,9 +140,25 @@ public final class MixinTransformerImpl implements TransformerService {
     return 50;
   }
 
+  @Override
+  public boolean exclusive() {
+    // Mixin applies mixins under a global lock of its own.
+    return true;
+  }
+
+  @Override
+  public boolean claims(final @NotNull String className, final byte@NotNull [] input) {
+    // Synthetic classes are generated by mixin, so they have no input.
+    if(input.length == 0) return true;
+
+    // Once every configuration is indexed, mixin no longer has to be asked.
+    if(!this.indexed && !this.indexed()) return true;
+    return this.targets.contains(className);
+  }
+
   @Override
   public boolean shouldTransform(final @NotNull Type type, final @NotNull ClassNode node) {
-    // We want to send everything for mixin to decide.
+    // We want to send every claimed class for mixin to decide.
     return true;
   }
 
@@ -90,7 +170,25 @@ public final class MixinTransformerImpl implements TransformerService {
     }
 
     // Transform the class through mixin.
-    return this.transformer.transformClass(MixinEnvironment.getCurrentEnvironment(), type.getClassName(), node) ? node : null;
+    final long start = System.nanoTime();
+    if(!this.transformer.transformClass(MixinEnvironment.getCurrentEnvironment(), type.getClassName(), node)) {
+      this.costs.unattributed(System.nanoTime() - start);
+      return null;
+    }
+
+    // Attribute the time to the mixins applied to the class.
+    final Set<IMixinInfo> applied = ClassInfo.forName(type.getInternalName()).getAppliedMixins();
+    this.costs.transformed(type.getClassName(), applied, System.nanoTime() - start);
+
+    // Record the mods whose mixins were applied to the class.
+    if(this.dependencies != null) {
+      for(final IMixinInfo mixin : applied) {
+        final String id = FabricUtil.getModId(mixin.getConfig(), null);
+        if(id != null) this.dependencies.target(id, type.getClassName());
+      }
+    }
+
+    return node;
   }
 
   /**
@@ -122,11 +220,82 @@ public final class MixinTransformerImpl implements TransformerService {
     throw new ClassNotFoundException(canonicalName);
   }
 
+  private boolean indexed() {
+    // The targets of the configurations that were not indexed are only known
+    // once mixin has selected every configuration, which happens when it
+    // transforms its first class.
+    if(Mixins.getUnvisitedCount() > 0) return this.indexedConfigs.size() >= Mixins.getConfigs().size();
+
+    synchronized(this.indexedConfigs) {
+      if(!this.indexed) {
+        // The selected targets are added to the indexed targets, as they may
+        // have been remapped.
+        for(final Config config : Mixins.getConfigs()) {
+          this.targets.addAll(config.getConfig().getTargets());
+          this.indexedConfigs.add(config.getName());
+        }
+
+        this.indexed = true;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Reloads the mixin with the given canonical name from the given class
+   * bytes, and returns the canonical names of its targets, which must be
+   * transformed again to apply it.
+   *
+   * @param canonicalName the canonical name of the mixin
+   * @param input the mixin class bytes
+   * @return the targets
+   * @throws ClassNotFoundException if the mixin class could not be read
+   * @since 1.1.0
+   */
+  public @NotNull List<String> reload(final @NotNull String canonicalName, final byte@NotNull [] input) throws ClassNotFoundException {
+    final ClassNode node = this.classNode(canonicalName, canonicalName.replace('.', '/'), input, ClassReader.EXPAND_FRAMES);
+    final List<String> targets = this.transformer.reload(canonicalName, node);
+    if(targets == null) return Collections.emptyList();
+
+    final List<String> result = new ArrayList<>(targets.size());
+    for(final String target : targets) {
+      result.add(target.replace('/', '.'));
+    }
+
+    // The reloaded mixin may target classes that were not indexed before.
+    this.targets.addAll(result);
+    return result;
+  }
+
+  /**
+   * Returns {@code true} if the class with the given canonical name is a
+   * synthetic class generated by mixin, otherwise returns {@code false}.
+   *
+   * @param canonicalName the canonical name
+   * @return whether the class is synthetic
+   * @since 1.1.0
+   */
+  public boolean synthetic(final @NotNull String canonicalName) {
+    return this.registry != null && this.registry.findSyntheticClass(canonicalName) != null;
+  }
+
   /* package */ boolean shouldGenerateClass(final @NotNull Type type) {
     return this.registry.findSyntheticClass(type.getClassName()) != null;
   }
 
   /* package */ boolean generateClass(final @NotNull Type type, final @NotNull ClassNode node) {
-    return this.transformer.generateClass(MixinEnvironment.getCurrentEnvironment(), type.getClassName(), node);
+    final long start = System.nanoTime();
+    final boolean generated = this.transformer.generateClass(MixinEnvironment.getCurrentEnvironment(), type.getClassName(), node);
+
+    // Attribute the time to the mixin the class is generated for.
+    final ISyntheticClassInfo info = this.registry.findSyntheticClass(type.getClassName());
+    if(info != null) {
+      this.costs.generated(info.getMixin(), System.nanoTime() - start);
+    } else {
+      this.costs.unattributed(System.nanoTime() - start);
+    }
+
+    return generated;
   }
 }
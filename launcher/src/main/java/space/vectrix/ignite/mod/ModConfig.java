@@ -41,6 +41,7 @@ public final class ModConfig {
   private @SerializedName("version") String version;
   private @SerializedName("mixins") List<String> mixins;
   private @SerializedName("wideners") List<String> wideners;
+  private @SerializedName("exclusions") List<String> exclusions;
 
   /**
    * Creates a new mod config.
@@ -122,6 +123,16 @@ public final class ModConfig {
     return this.wideners;
   }
 
+  /**
+   * Returns the list of mod transformation exclusions.
+   *
+   * @return the mod transformation exclusions
+   * @since 1.1.0
+   */
+  public @Nullable List<String> exclusions() {
+    return this.exclusions;
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(this.id, this.version, this.mixins);
@@ -135,7 +146,8 @@ public final class ModConfig {
     return Objects.equals(this.id, that.id)
       && Objects.equals(this.version, that.version)
       && Objects.equals(this.mixins, that.mixins)
-      && Objects.equals(this.wideners, that.wideners);
+      && Objects.equals(this.wideners, that.wideners)
+      && Objects.equals(this.exclusions, that.exclusions);
   }
 
   @Override
@@ -144,6 +156,7 @@ public final class ModConfig {
       "id=" + this.id + ", " +
       "version=" + this.version + ", " +
       "mixins=" + Arrays.toString(this.mixins.toArray(new String[0])) + ", " +
-      "wideners=" + Arrays.toString(this.wideners.toArray(new String[0])) + ")";
+      "wideners=" + Arrays.toString(this.wideners.toArray(new String[0])) + ", " +
+      "exclusions=" + this.exclusions + ")";
   }
 }
@@ -34,6 +34,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.jetbrains.annotations.NotNull;
 import org.spongepowered.asm.mixin.FabricUtil;
 import org.spongepowered.asm.mixin.Mixins;
@@ -42,9 +43,11 @@ import org.spongepowered.asm.mixin.transformer.Config;
 import org.spongepowered.asm.service.MixinService;
 import org.tinylog.Logger;
 import space.vectrix.ignite.agent.IgniteAgent;
+import space.vectrix.ignite.launch.ember.EmberClassLoader;
 import space.vectrix.ignite.launch.ember.EmberMixinContainer;
 import space.vectrix.ignite.launch.ember.EmberMixinService;
 import space.vectrix.ignite.launch.ember.EmberTransformer;
+import space.vectrix.ignite.launch.ember.TransformDependencies;
 import space.vectrix.ignite.launch.transformer.AccessTransformerImpl;
 
 /**
@@ -127,6 +130,25 @@ public final class ModsImpl implements Mods {
     return targetResources;
   }
 
+  /**
+   * Resolves the transformation exclusions provided by the mods.
+   *
+   * @param classLoader the class loader
+   * @since 1.1.0
+   */
+  public void resolveExclusions(final @NotNull EmberClassLoader classLoader) {
+    for(final ModContainer container : this.containers()) {
+      final List<String> exclusions = ((ModContainerImpl) container).config().exclusions();
+      if(exclusions == null || exclusions.isEmpty()) continue;
+
+      for(final String exclusion : exclusions) {
+        classLoader.addTransformationExclusion(exclusion);
+      }
+
+      Logger.trace("Added the transformation exclusions: {}", String.join(", ", exclusions));
+    }
+  }
+
   /**
    * Resolves the access wideners provided by the mods.
    *
@@ -137,6 +159,8 @@ public final class ModsImpl implements Mods {
     final AccessTransformerImpl accessTransformer = transformer.transformer(AccessTransformerImpl.class);
     if(accessTransformer == null) return;
 
+    final TransformDependencies dependencies = transformer.dependencies();
+
     for(final ModContainer container : this.containers()) {
       final ModResource resource = container.resource();
 
@@ -147,7 +171,12 @@ public final class ModsImpl implements Mods {
           final Path path = resource.fileSystem().getPath(widener);
           try {
             Logger.trace("Adding the access widener: {}", widener);
-            accessTransformer.addWidener(path);
+            final Set<String> targets = accessTransformer.addWidenerWithTargets(path);
+
+            // Record the classes the widener changes, for the mod.
+            if(dependencies != null) {
+              for(final String target : targets) dependencies.target(container.id(), target);
+            }
           } catch(final IOException exception) {
             Logger.trace(exception, "Failed to configure widener: {}", widener);
             continue;
@@ -159,6 +188,22 @@ public final class ModsImpl implements Mods {
     }
   }
 
+  /**
+   * Returns {@code true} if any mod provides mixin configurations, otherwise
+   * returns {@code false}.
+   *
+   * @return whether any mod provides mixins
+   * @since 1.1.0
+   */
+  public boolean mixins() {
+    for(final ModContainer container : this.containers()) {
+      final List<String> mixins = ((ModContainerImpl) container).config().mixins();
+      if(mixins != null && !mixins.isEmpty()) return true;
+    }
+
+    return false;
+  }
+
   /**
    * Applies the mixin transformers provided by the mods.
    *
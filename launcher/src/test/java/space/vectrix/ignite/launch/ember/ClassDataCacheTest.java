@@ -0,0 +1,86 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class ClassDataCacheTest {
+  @Test
+  void removeOnLoad() {
+    final ClassDataCache cache = new ClassDataCache(1024);
+    final byte[] data = new byte[16];
+    cache.put("com.example.Type", data);
+
+    assertArrayEquals(data, cache.get("com.example.Type", false));
+    assertArrayEquals(data, cache.get("com.example.Type", true));
+    assertNull(cache.get("com.example.Type", true));
+    assertEquals(2, cache.hits());
+    assertEquals(1, cache.misses());
+  }
+
+  @Test
+  void evictLeastRecentlyUsed() {
+    final ClassDataCache cache = new ClassDataCache(32);
+    cache.put("com.example.First", new byte[16]);
+    cache.put("com.example.Second", new byte[16]);
+    cache.get("com.example.First", false);
+    cache.put("com.example.Third", new byte[16]);
+
+    assertNull(cache.get("com.example.Second", false));
+    assertEquals(16, cache.get("com.example.First", false).length);
+    assertEquals(16, cache.get("com.example.Third", false).length);
+    assertEquals(1, cache.evictions());
+  }
+
+  @Test
+  void exclude() {
+    final ClassDataCache cache = new ClassDataCache(1024);
+    cache.exclude("com.example.mixin.");
+    cache.put("com.example.mixin.TypeMixin", new byte[16]);
+    cache.put("com.example.mixins.Type", new byte[16]);
+
+    assertNull(cache.get("com.example.mixin.TypeMixin", false));
+    assertEquals(16, cache.get("com.example.mixins.Type", false).length);
+  }
+
+  @Test
+  void close() {
+    final ClassDataCache cache = new ClassDataCache(1024);
+    cache.put("com.example.Type", new byte[16]);
+    cache.close();
+    cache.put("com.example.Other", new byte[16]);
+
+    assertNull(cache.get("com.example.Type", false));
+    assertNull(cache.get("com.example.Other", false));
+
+    // Lookups after the cache is closed are not misses.
+    assertEquals(0, cache.misses());
+    assertEquals(0, cache.hits());
+  }
+}
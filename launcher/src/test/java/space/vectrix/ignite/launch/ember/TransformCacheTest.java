@@ -0,0 +1,162 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TransformCacheTest {
+  private static final byte[] FINGERPRINT = "fingerprint".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] INPUT = "input".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] OUTPUT = "output".getBytes(StandardCharsets.UTF_8);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void roundTrip() throws Exception {
+    final TransformCache cache = new TransformCache(this.directory, FINGERPRINT, Long.MAX_VALUE);
+    final String key = cache.key("com.example.Type", TransformPhase.INITIALIZE, INPUT);
+    assertNull(cache.get(key, INPUT));
+
+    cache.put(key, OUTPUT);
+    TransformCacheTest.await(() -> cache.writes() == 1);
+    assertArrayEquals(OUTPUT, cache.get(key, INPUT));
+    assertEquals(1, cache.hits());
+    assertEquals(1, cache.misses());
+
+    // The entries are persisted across launches.
+    final TransformCache reopened = new TransformCache(this.directory, FINGERPRINT, Long.MAX_VALUE);
+    assertArrayEquals(OUTPUT, reopened.get(key, INPUT));
+    assertEquals(16 + OUTPUT.length, reopened.size());
+  }
+
+  @Test
+  void unchanged() throws Exception {
+    final TransformCache cache = new TransformCache(this.directory, FINGERPRINT, Long.MAX_VALUE);
+    final String key = cache.key("com.example.Type", TransformPhase.INITIALIZE, INPUT);
+
+    cache.put(key, null);
+    TransformCacheTest.await(() -> cache.writes() == 1);
+    assertSame(INPUT, cache.get(key, INPUT));
+  }
+
+  @Test
+  void keys() throws Exception {
+    final TransformCache cache = new TransformCache(this.directory, FINGERPRINT, Long.MAX_VALUE);
+    final TransformCache other = new TransformCache(this.directory, OUTPUT, Long.MAX_VALUE);
+    final String key = cache.key("com.example.Type", TransformPhase.INITIALIZE, INPUT);
+
+    assertEquals(key, cache.key("com.example.Type", TransformPhase.INITIALIZE, INPUT));
+    assertNotEquals(key, cache.key("com.example.Other", TransformPhase.INITIALIZE, INPUT));
+    assertNotEquals(key, cache.key("com.example.Type", TransformPhase.MIXIN, INPUT));
+    assertNotEquals(key, cache.key("com.example.Type", TransformPhase.INITIALIZE, OUTPUT));
+    assertNotEquals(key, other.key("com.example.Type", TransformPhase.INITIALIZE, INPUT));
+  }
+
+  @Test
+  void corrupt() throws Exception {
+    final TransformCache cache = new TransformCache(this.directory, FINGERPRINT, Long.MAX_VALUE);
+    final String key = cache.key("com.example.Type", TransformPhase.INITIALIZE, INPUT);
+
+    cache.put(key, OUTPUT);
+    TransformCacheTest.await(() -> cache.writes() == 1);
+
+    // Flip a byte of the output, so the checksum no longer matches.
+    final Path entry = this.directory.resolve(key.substring(0, 2)).resolve(key.concat(".bin"));
+    final byte[] bytes = Files.readAllBytes(entry);
+    bytes[bytes.length - 1] ^= 1;
+    Files.write(entry, bytes);
+
+    assertNull(cache.get(key, INPUT));
+    assertFalse(Files.exists(entry));
+  }
+
+  @Test
+  void truncated() throws Exception {
+    final TransformCache cache = new TransformCache(this.directory, FINGERPRINT, Long.MAX_VALUE);
+    final String key = cache.key("com.example.Type", TransformPhase.INITIALIZE, INPUT);
+
+    final Path entry = this.directory.resolve(key.substring(0, 2)).resolve(key.concat(".bin"));
+    Files.createDirectories(entry.getParent());
+    Files.write(entry, new byte[] {0x45, 0x4D});
+
+    assertNull(cache.get(key, INPUT));
+    assertFalse(Files.exists(entry));
+  }
+
+  @Test
+  void temporary() throws Exception {
+    final Path shard = Files.createDirectories(this.directory.resolve("00"));
+    final Path temporary = Files.write(shard.resolve("00.tmp"), OUTPUT);
+
+    // Incomplete entries are removed when the cache is opened.
+    new TransformCache(this.directory, FINGERPRINT, Long.MAX_VALUE);
+    assertFalse(Files.exists(temporary));
+  }
+
+  @Test
+  void evict() throws Exception {
+    final byte[] output = new byte[64];
+    final TransformCache cache = new TransformCache(this.directory, FINGERPRINT, 200);
+    for(int index = 0; index < 4; index++) {
+      cache.put(cache.key("com.example.Type" + index, TransformPhase.INITIALIZE, INPUT), output);
+    }
+
+    // Each entry takes 80 bytes, so the third and fourth writes each evict
+    // the oldest entry to get back under 90% of the maximum size.
+    TransformCacheTest.await(() -> cache.writes() == 4 && cache.evictions() == 2 && cache.size() == 160);
+    assertEquals(2, TransformCacheTest.entries(this.directory));
+  }
+
+  private static void await(final BooleanSupplier condition) throws InterruptedException {
+    // Entries are written asynchronously.
+    final long deadline = System.nanoTime() + 5_000_000_000L;
+    while(!condition.getAsBoolean()) {
+      if(System.nanoTime() > deadline) fail("Timed out waiting for the cache writer");
+      Thread.sleep(10);
+    }
+  }
+
+  private static long entries(final Path directory) throws IOException {
+    try(final Stream<Path> paths = Files.walk(directory)) {
+      return paths.filter(path -> path.toString().endsWith(".bin")).count();
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TransformDependenciesTest {
+  private static final byte[] FIRST = "first".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] SECOND = "second".getBytes(StandardCharsets.UTF_8);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void unchanged() throws IOException {
+    final TransformDependencies previous = new TransformDependencies();
+    previous.source("a", FIRST);
+    previous.source("b", SECOND);
+    previous.target("a", "com.example.A");
+    previous.target("b", "com.example.B");
+
+    final TransformDependencies current = TransformDependenciesTest.reload(previous);
+    current.source("a", FIRST);
+    current.source("b", SECOND);
+    current.resolve();
+
+    assertFalse(current.changed());
+    assertFalse(current.changed("a"));
+    assertFalse(current.invalidated("com.example.A"));
+    assertFalse(current.invalidated("com.example.B"));
+  }
+
+  @Test
+  void changedSource() throws IOException {
+    final TransformDependencies previous = new TransformDependencies();
+    previous.source("a", FIRST);
+    previous.source("b", FIRST);
+    previous.target("a", "com.example.A");
+    previous.target("b", "com.example.B");
+
+    final TransformDependencies current = TransformDependenciesTest.reload(previous);
+    current.source("a", SECOND);
+    current.source("b", FIRST);
+    current.target("a", "com.example.C");
+    current.resolve();
+
+    assertTrue(current.changed());
+    assertTrue(current.changed("a"));
+    assertFalse(current.changed("b"));
+
+    // The classes the source changed before and changes now are invalidated.
+    assertTrue(current.invalidated("com.example.A"));
+    assertTrue(current.invalidated("com.example.C"));
+    assertFalse(current.invalidated("com.example.B"));
+  }
+
+  @Test
+  void removedSource() throws IOException {
+    final TransformDependencies previous = new TransformDependencies();
+    previous.source("a", FIRST);
+    previous.source("b", FIRST);
+    previous.target("a", "com.example.A");
+    previous.target("b", "com.example.B");
+
+    final TransformDependencies current = TransformDependenciesTest.reload(previous);
+    current.source("b", FIRST);
+    current.resolve();
+
+    assertTrue(current.changed());
+    assertTrue(current.invalidated("com.example.A"));
+    assertFalse(current.invalidated("com.example.B"));
+  }
+
+  @Test
+  void unresolved() throws IOException {
+    final TransformDependencies previous = new TransformDependencies();
+    previous.source("a", FIRST);
+
+    final TransformDependencies current = TransformDependenciesTest.reload(previous);
+    current.source("a", SECOND);
+
+    // Until resolved, every class depends on every source.
+    assertTrue(current.invalidated("com.example.Unrelated"));
+  }
+
+  @Test
+  void carriedClasses() throws IOException {
+    final TransformDependencies first = new TransformDependencies();
+    first.source("a", FIRST);
+    first.target("a", "com.example.A");
+
+    // The second launch records nothing for the unchanged source, so the
+    // classes of the first launch are carried over.
+    final TransformDependencies second = TransformDependenciesTest.reload(first);
+    second.source("a", FIRST);
+    second.resolve();
+
+    final TransformDependencies third = TransformDependenciesTest.reload(second);
+    third.source("a", SECOND);
+    third.resolve();
+
+    assertTrue(third.invalidated("com.example.A"));
+  }
+
+  @Test
+  void digest() throws Exception {
+    final TransformDependencies dependencies = new TransformDependencies();
+    dependencies.source("a", FIRST);
+    dependencies.source("b", SECOND);
+    dependencies.target("a", "com.example.A");
+    dependencies.resolve();
+
+    final TransformDependencies changed = new TransformDependencies();
+    changed.source("a", FIRST);
+    changed.source("b", FIRST);
+    changed.target("a", "com.example.A");
+    changed.resolve();
+
+    // Only the sources that change a class contribute to its digest.
+    assertArrayEquals(TransformDependenciesTest.digest(dependencies, "com.example.A", false), TransformDependenciesTest.digest(changed, "com.example.A", false));
+    assertFalse(Arrays.equals(TransformDependenciesTest.digest(dependencies, "com.example.A", true), TransformDependenciesTest.digest(changed, "com.example.A", true)));
+  }
+
+  @Test
+  void path() throws IOException {
+    final TransformDependencies previous = new TransformDependencies();
+    previous.source("a", FIRST);
+    previous.target("a", "com.example.A");
+
+    final Path path = this.directory.resolve("nested").resolve("dependencies.bin");
+    previous.write(path);
+
+    final TransformDependencies current = new TransformDependencies();
+    current.read(path);
+    current.source("a", FIRST);
+    current.resolve();
+    assertFalse(current.changed());
+  }
+
+  @Test
+  void invalidMagic() {
+    final TransformDependencies dependencies = new TransformDependencies();
+    assertThrows(IOException.class, () -> dependencies.read(new ByteArrayInputStream(new byte[] {0, 0, 0, 0})));
+  }
+
+  private static TransformDependencies reload(final TransformDependencies previous) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    previous.write(output);
+
+    final TransformDependencies current = new TransformDependencies();
+    current.read(new ByteArrayInputStream(output.toByteArray()));
+    return current;
+  }
+
+  private static byte[] digest(final TransformDependencies dependencies, final String className, final boolean synthetic) throws Exception {
+    final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    dependencies.digest(digest, className, synthetic);
+    return digest.digest();
+  }
+}
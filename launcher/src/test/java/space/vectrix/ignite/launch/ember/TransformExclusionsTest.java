@@ -0,0 +1,107 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.ember;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class TransformExclusionsTest {
+  @Test
+  void prefixes() {
+    final TransformExclusions exclusions = new TransformExclusions("com.example.", "org.objectweb.asm.");
+    assertTrue(exclusions.excluded("com.example.Main"));
+    assertTrue(exclusions.excluded("com.example.inner.Type"));
+    assertTrue(exclusions.excluded("org.objectweb.asm.ClassReader"));
+    assertFalse(exclusions.excluded("com.examples.Main"));
+    assertFalse(exclusions.excluded("com.Example"));
+    assertFalse(exclusions.excluded("net.example.Main"));
+  }
+
+  @Test
+  void separators() {
+    final TransformExclusions exclusions = new TransformExclusions("com/example/");
+    assertTrue(exclusions.excluded("com.example.Main"));
+    assertTrue(exclusions.excluded("com/example/Main.class"));
+    assertFalse(exclusions.excluded("com/examples/Main.class"));
+  }
+
+  @Test
+  void segmentGlob() {
+    final TransformExclusions exclusions = new TransformExclusions("com.*.shaded.");
+    assertTrue(exclusions.excluded("com.example.shaded.Type"));
+    assertTrue(exclusions.excluded("com..shaded.Type"));
+    assertFalse(exclusions.excluded("com.example.inner.shaded.Type"));
+    assertFalse(exclusions.excluded("com.example.Type"));
+  }
+
+  @Test
+  void globstar() {
+    final TransformExclusions exclusions = new TransformExclusions("com.**.shaded.");
+    assertTrue(exclusions.excluded("com.example.shaded.Type"));
+    assertTrue(exclusions.excluded("com.example.inner.shaded.Type"));
+    assertTrue(exclusions.excluded("com/example/inner/shaded/Type.class"));
+    assertFalse(exclusions.excluded("com.example.Type"));
+    assertFalse(exclusions.excluded("org.example.shaded.Type"));
+  }
+
+  @Test
+  void trailingGlob() {
+    final TransformExclusions exclusions = new TransformExclusions("com.example.Type*");
+    assertTrue(exclusions.excluded("com.example.Type"));
+    assertTrue(exclusions.excluded("com.example.TypeImpl"));
+    assertTrue(exclusions.excluded("com.example.Type$Inner"));
+    assertFalse(exclusions.excluded("com.example.Other"));
+  }
+
+  @Test
+  void mixedRules() {
+    final TransformExclusions exclusions = new TransformExclusions("com.example.", "org.*.internal.");
+    exclusions.add("net.**.Generated");
+    assertTrue(exclusions.excluded("com.example.Main"));
+    assertTrue(exclusions.excluded("org.example.internal.Type"));
+    assertTrue(exclusions.excluded("net.example.inner.Generated"));
+    assertTrue(exclusions.excluded("net.example.inner.GeneratedImpl"));
+    assertFalse(exclusions.excluded("org.example.Type"));
+    assertFalse(exclusions.excluded("net.example.Type"));
+  }
+
+  @Test
+  void rules() {
+    final TransformExclusions exclusions = new TransformExclusions("com.example.", "", "com.example.");
+    exclusions.add("org.example.");
+    assertEquals(Arrays.asList("com.example.", "org.example."), exclusions.rules());
+  }
+
+  @Test
+  void empty() {
+    final TransformExclusions exclusions = new TransformExclusions();
+    assertFalse(exclusions.excluded("com.example.Main"));
+    assertFalse(exclusions.excluded(""));
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of Ignite, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) vectrix.space <https://vectrix.space/>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package space.vectrix.ignite.launch.transformer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.MethodNode;
+import space.vectrix.ignite.launch.ember.StreamingTransformerService;
+import space.vectrix.ignite.launch.ember.TransformPhase;
+
+class DebugTransformerImplTest {
+  private static final String NAME = "com/example/Type";
+
+  @Test
+  void attributes() {
+    assertEquals(DebugTransformerImpl.LINES, DebugTransformerImpl.attributes("lines"));
+    assertEquals(DebugTransformerImpl.LOCALS | DebugTransformerImpl.SOURCE, DebugTransformerImpl.attributes("locals+ SOURCE"));
+    assertEquals(DebugTransformerImpl.EXTENSION, DebugTransformerImpl.attributes("extension+none"));
+    assertEquals(0, DebugTransformerImpl.attributes("none"));
+    assertThrows(IllegalArgumentException.class, () -> DebugTransformerImpl.attributes("lines+unknown"));
+  }
+
+  @Test
+  void unconfigured() {
+    final DebugTransformerImpl transformer = new DebugTransformerImpl();
+    assertEquals(Collections.emptyList(), transformer.targetPrefixes());
+    assertFalse(transformer.claims("com.example.Type", new byte[0]));
+  }
+
+  @Test
+  void rules() {
+    final DebugTransformerImpl transformer = new DebugTransformerImpl();
+    transformer.strip("com.example.", DebugTransformerImpl.DEFAULT);
+    transformer.strip("com.example.kept.", 0);
+
+    // The most specific rule decides, and rules that strip nothing are not
+    // targets.
+    assertTrue(transformer.claims("com.example.Type", new byte[0]));
+    assertFalse(transformer.claims("com.example.kept.Type", new byte[0]));
+    assertFalse(transformer.claims("org.example.Type", new byte[0]));
+    assertEquals(Collections.singletonList("com.example."), transformer.targetPrefixes());
+  }
+
+  @Test
+  void stripDefault() {
+    final DebugTransformerImpl transformer = new DebugTransformerImpl();
+    transformer.strip("com.example.", DebugTransformerImpl.DEFAULT);
+
+    final ClassNode node = DebugTransformerImplTest.strip(transformer);
+    final MethodNode method = node.methods.get(0);
+    assertEquals("Type.java", node.sourceFile);
+    assertNull(node.sourceDebug);
+    assertTrue(Arrays.stream(method.instructions.toArray()).anyMatch(instruction -> instruction instanceof LineNumberNode));
+    assertTrue(method.localVariables == null || method.localVariables.isEmpty());
+    assertEquals(1, transformer.strippedClasses());
+    assertTrue(transformer.strippedBytes() > 0);
+  }
+
+  @Test
+  void stripAll() {
+    final DebugTransformerImpl transformer = new DebugTransformerImpl();
+    transformer.strip("com.example.", DebugTransformerImpl.attributes("lines+locals+source+extension"));
+
+    final ClassNode node = DebugTransformerImplTest.strip(transformer);
+    final MethodNode method = node.methods.get(0);
+    assertNull(node.sourceFile);
+    assertNull(node.sourceDebug);
+    assertFalse(Arrays.stream(method.instructions.toArray()).anyMatch(instruction -> instruction instanceof LineNumberNode));
+    assertTrue(method.localVariables == null || method.localVariables.isEmpty());
+  }
+
+  @Test
+  void stripNothing() {
+    final DebugTransformerImpl transformer = new DebugTransformerImpl();
+    transformer.strip("com.example.", DebugTransformerImpl.LOCALS);
+
+    // The input has no local variables, so the class is not changed.
+    final StreamingTransformerService.Modification modification = new StreamingTransformerService.Modification();
+    new ClassReader(DebugTransformerImplTest.input(false)).accept(transformer.visitor(Type.getObjectType(NAME), new ClassWriter(0), TransformPhase.INITIALIZE, modification), 0);
+    assertFalse(modification.marked());
+    assertEquals(0, transformer.strippedBytes());
+  }
+
+  private static ClassNode strip(final DebugTransformerImpl transformer) {
+    final ClassWriter writer = new ClassWriter(0);
+    final StreamingTransformerService.Modification modification = new StreamingTransformerService.Modification();
+    new ClassReader(DebugTransformerImplTest.input(true)).accept(transformer.visitor(Type.getObjectType(NAME), writer, TransformPhase.INITIALIZE, modification), 0);
+    assertTrue(modification.marked());
+
+    final ClassNode node = new ClassNode();
+    new ClassReader(writer.toByteArray()).accept(node, 0);
+    return node;
+  }
+
+  private static byte[] input(final boolean locals) {
+    final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, NAME, null, "java/lang/Object", null);
+    writer.visitSource("Type.java", "SMAP");
+
+    final MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+    final Label start = new Label();
+    final Label end = new Label();
+    method.visitCode();
+    method.visitLabel(start);
+    method.visitLineNumber(1, start);
+    method.visitInsn(Opcodes.ICONST_0);
+    method.visitVarInsn(Opcodes.ISTORE, 0);
+    method.visitInsn(Opcodes.RETURN);
+    method.visitLabel(end);
+    if(locals) method.visitLocalVariable("value", "I", null, start, end, 0);
+    method.visitMaxs(0, 0);
+    method.visitEnd();
+
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+}